@@ -2,31 +2,85 @@ package pl.vabanq.erp.api;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pl.vabanq.erp.api.request.AccessoryImportRequest;
 import pl.vabanq.erp.api.request.FastenersAccessoryRequest;
 import pl.vabanq.erp.api.request.FilamentAccessoryRequest;
 import pl.vabanq.erp.api.request.PackagingAccessoryRequest;
 import pl.vabanq.erp.api.response.FastenersAccessoryResponse;
 import pl.vabanq.erp.api.response.FilamentAccessoryResponse;
 import pl.vabanq.erp.api.response.PackagingAccessoryResponse;
+import pl.vabanq.erp.api.response.ProductResponse;
+import pl.vabanq.erp.domain.Identifiable;
 import pl.vabanq.erp.domain.products.accessory.AccessoryService;
 import pl.vabanq.erp.domain.products.accessory.model.*;
+import pl.vabanq.erp.domain.products.product.ProductService;
+import pl.vabanq.erp.domain.version.ResourceVersionService;
+import pl.vabanq.erp.domain.version.model.ResourceCollection;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/accessories")
 public class AccessoryController {
 
     private final AccessoryService accessoryService;
+    private final ProductService productService;
+    private final ResourceVersionService resourceVersionService;
     private final ConversionService conversionService;
+    private final JsonFragmentCache jsonFragmentCache;
 
     @Autowired
-    public AccessoryController(AccessoryService accessoryService, ConversionService conversionService) {
+    public AccessoryController(AccessoryService accessoryService, ProductService productService,
+                               ResourceVersionService resourceVersionService, ConversionService conversionService,
+                               JsonFragmentCache jsonFragmentCache) {
         this.accessoryService = accessoryService;
+        this.productService = productService;
+        this.resourceVersionService = resourceVersionService;
         this.conversionService = conversionService;
+        this.jsonFragmentCache = jsonFragmentCache;
+    }
+
+    // Produkty, które używają akcesorium - np. do przeliczenia po zmianie ceny filamentu
+    @GetMapping("/{id}/used-by")
+    public ResponseEntity<List<ProductResponse>> getProductsUsingAccessory(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // ETag z wersji wszystkich produktów nie mówi nic o istnieniu akcesorium - sprawdzane przed 304
+        accessoryService.getAccessory(id);
+        String eTag = ETags.of(resourceVersionService.getVersion(ResourceCollection.PRODUCTS));
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return ETags.notModified(eTag);
+        }
+        List<ProductResponse> response = productService.getProductsUsingAccessory(id).stream()
+                .map(product -> conversionService.convert(product, ProductResponse.class))
+                .toList();
+        return ResponseEntity.ok().eTag(eTag).cacheControl(ETags.REVALIDATE).body(response);
+    }
+
+    // Bulk upsert - wiersz z id istniejącego akcesorium aktualizuje je, pozostałe tworzą nowe akcesoria
+    @PostMapping("/bulk")
+    public ResponseEntity<AccessoryImportReport> importAccessories(@RequestBody AccessoryImportRequest request) {
+        List<AccessoryDraft> drafts = new ArrayList<>();
+        if (request.filaments() != null) {
+            request.filaments().forEach(row -> drafts.add(conversionService.convert(row, FilamentAccessoryDraft.class)));
+        }
+        if (request.packaging() != null) {
+            request.packaging().forEach(row -> drafts.add(conversionService.convert(row, PackagingAccessoryDraft.class)));
+        }
+        if (request.fasteners() != null) {
+            request.fasteners().forEach(row -> drafts.add(conversionService.convert(row, FastenersAccessoryDraft.class)));
+        }
+        return new ResponseEntity<>(accessoryService.importAccessories(drafts), HttpStatus.OK);
     }
 
     // Save Filament
@@ -100,21 +154,51 @@ public class AccessoryController {
 
     // Get All Filaments
     @GetMapping("/filaments")
-    public ResponseEntity<List<FilamentAccessoryResponse>> getAllFilaments() {
+    public ResponseEntity<StreamingResponseBody> getAllFilaments(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Wersja czytana przed danymi - zapis w trakcie odczytu da najwyżej zbędne 200 przy kolejnym pytaniu
+        String version = resourceVersionService.getVersion(ResourceCollection.FILAMENTS);
+        String eTag = ETags.of(version);
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return ETags.notModified(eTag);
+        }
         List<FilamentAccessory> filaments = accessoryService.getAllFilaments();
-        List<FilamentAccessoryResponse> response = filaments.stream()
-                .map(filament -> conversionService.convert(filament, FilamentAccessoryResponse.class))
-                .toList();
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        // Fragmenty trafiają do cache tylko, gdy kolekcja nie zmieniła się w trakcie odczytu
+        boolean stable = version.equals(resourceVersionService.getVersion(ResourceCollection.FILAMENTS));
+        return fragmentsResponse(filaments,
+                filament -> conversionService.convert(filament, FilamentAccessoryResponse.class), stable, eTag);
     }
 
     // Get All Packaging Accessories
     @GetMapping("/packaging")
-    public ResponseEntity<List<PackagingAccessoryResponse>> getAllPackagingAccessories() {
+    public ResponseEntity<StreamingResponseBody> getAllPackagingAccessories(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String version = resourceVersionService.getVersion(ResourceCollection.PACKAGING);
+        String eTag = ETags.of(version);
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return ETags.notModified(eTag);
+        }
         List<PackagingAccessory> packagingAccessories = accessoryService.getAllPackagingAccessories();
-        List<PackagingAccessoryResponse> response = packagingAccessories.stream()
-                .map(packaging -> conversionService.convert(packaging, PackagingAccessoryResponse.class))
-                .toList();
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        boolean stable = version.equals(resourceVersionService.getVersion(ResourceCollection.PACKAGING));
+        return fragmentsResponse(packagingAccessories,
+                packaging -> conversionService.convert(packaging, PackagingAccessoryResponse.class), stable, eTag);
+    }
+
+    // Akcesoria są już wczytane - w treści odpowiedzi tylko konwersja brakujących fragmentów i zapis do strumienia
+    private <T extends Identifiable> ResponseEntity<StreamingResponseBody> fragmentsResponse(
+            List<T> accessories, Function<T, ?> toResponse, boolean cacheable, String eTag) {
+        Map<String, T> accessoriesById = accessories.stream()
+                .collect(Collectors.toMap(Identifiable::id, Function.identity()));
+        List<String> ids = accessories.stream().map(Identifiable::id).toList();
+        StreamingResponseBody body = output -> jsonFragmentCache.writeArray(output, ids, this::versionedKey,
+                missing -> missing.stream()
+                        .collect(Collectors.toMap(Function.identity(), id -> toResponse.apply(accessoriesById.get(id)))),
+                cacheable);
+        return ResponseEntity.ok().eTag(eTag).cacheControl(ETags.REVALIDATE)
+                .contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private String versionedKey(String id) {
+        return id + "@" + resourceVersionService.getVersion(id);
     }
 }
@@ -0,0 +1,107 @@
+package pl.vabanq.erp.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import pl.vabanq.erp.domain.error.DomainException;
+import pl.vabanq.erp.domain.error.ErrorCode;
+
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+// Zapis eksportu katalogu wiersz po wierszu: NDJSON albo CSV z nagłówkiem z nazw pól rekordu.
+// Po każdej porcji bufor jest wypychany do klienta, opcjonalnie przez gzip kompresowany w locie.
+abstract class CatalogueExportWriter<T extends Record> implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    protected final Writer writer;
+
+    private CatalogueExportWriter(OutputStream output, boolean gzip) throws IOException {
+        // syncFlush - każda porcja dociera do klienta od razu, a nie dopiero po zapełnieniu bufora kompresora
+        OutputStream target = gzip ? new GZIPOutputStream(output, BUFFER_SIZE, true) : output;
+        this.writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    static <T extends Record> CatalogueExportWriter<T> ndjson(OutputStream output, boolean gzip,
+                                                             ObjectMapper objectMapper) throws IOException {
+        return new CatalogueExportWriter<>(output, gzip) {
+            @Override
+            void write(T row) throws IOException {
+                writer.write(objectMapper.writeValueAsString(row));
+                writer.write('\n');
+            }
+        };
+    }
+
+    // Listy zapisywane jako wartości rozdzielone średnikiem, pola z przecinkami lub znakami nowej linii w cudzysłowach
+    static <T extends Record> CatalogueExportWriter<T> csv(OutputStream output, boolean gzip,
+                                                          Class<T> rowType) throws IOException {
+        RecordComponent[] components = rowType.getRecordComponents();
+        CatalogueExportWriter<T> csvWriter = new CatalogueExportWriter<>(output, gzip) {
+            @Override
+            void write(T row) throws IOException {
+                for (int i = 0; i < components.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(escape(format(value(components[i], row))));
+                }
+                writer.write('\n');
+            }
+        };
+        csvWriter.writer.write(Arrays.stream(components)
+                .map(RecordComponent::getName)
+                .collect(Collectors.joining(",")));
+        csvWriter.writer.write('\n');
+        return csvWriter;
+    }
+
+    abstract void write(T row) throws IOException;
+
+    // Wyjątek zapisu opakowany, bo porcje przekazywane są z wnętrza transakcji przez Consumer
+    void writeChunk(List<T> rows) {
+        try {
+            for (T row : rows) {
+                write(row);
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Zamknięcie dopisuje stopkę gzip
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private static Object value(RecordComponent component, Record row) {
+        try {
+            return component.getAccessor().invoke(row);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new DomainException(ErrorCode.INTERNAL_ERROR);
+        }
+    }
+
+    private static String format(Object value) {
+        return switch (value) {
+            case null -> "";
+            case BigDecimal decimal -> decimal.toPlainString();
+            case Collection<?> values -> values.stream().map(CatalogueExportWriter::format).collect(Collectors.joining(";"));
+            default -> value.toString();
+        };
+    }
+
+    private static String escape(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+}
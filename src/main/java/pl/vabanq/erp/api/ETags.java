@@ -0,0 +1,39 @@
+package pl.vabanq.erp.api;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+// Mocne ETagi z wersji zasobu i obsługa If-None-Match. Odpowiedzi mają no-cache, więc klient zawsze pyta o zmiany,
+// ale przy niezmienionej wersji dostaje 304 bez treści.
+final class ETags {
+    static final CacheControl REVALIDATE = CacheControl.noCache();
+
+    private ETags() {
+    }
+
+    static String of(String version) {
+        return "\"" + version + "\"";
+    }
+
+    // If-None-Match porównuje słabo (RFC 9110) - prefiks W/ nie wpływa na wynik
+    static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(REVALIDATE).build();
+    }
+}
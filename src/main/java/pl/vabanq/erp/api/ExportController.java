@@ -0,0 +1,131 @@
+package pl.vabanq.erp.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pl.vabanq.erp.api.response.AccessoryExportRow;
+import pl.vabanq.erp.api.response.ProductExportRow;
+import pl.vabanq.erp.domain.error.DomainException;
+import pl.vabanq.erp.domain.error.ErrorCode;
+import pl.vabanq.erp.domain.products.accessory.AccessoryService;
+import pl.vabanq.erp.domain.products.product.ProductService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+// Eksport całego katalogu dla zadań nocnych: ?format=ndjson|csv, gzip gdy klient wysyła Accept-Encoding: gzip.
+// Wiersze czytane z bazy kursorem i zapisywane porcjami - w pamięci jest najwyżej jedna porcja.
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+    private static final String GZIP = "gzip";
+
+    private final ProductService productService;
+    private final AccessoryService accessoryService;
+    private final ConversionService conversionService;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ExportController(ProductService productService, AccessoryService accessoryService,
+                            ConversionService conversionService, ObjectMapper objectMapper) {
+        this.productService = productService;
+        this.accessoryService = accessoryService;
+        this.conversionService = conversionService;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping("/products")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = output -> export(output, exportFormat, gzip, ProductExportRow.class,
+                writer -> productService.exportProducts(chunk -> writer.writeChunk(chunk.stream()
+                        .map(product -> conversionService.convert(product, ProductExportRow.class))
+                        .toList())));
+        return exportResponse(body, exportFormat, gzip, "products");
+    }
+
+    @GetMapping("/accessories")
+    public ResponseEntity<StreamingResponseBody> exportAccessories(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = output -> export(output, exportFormat, gzip, AccessoryExportRow.class,
+                writer -> accessoryService.exportAccessories(chunk -> writer.writeChunk(chunk.stream()
+                        .map(accessory -> conversionService.convert(accessory, AccessoryExportRow.class))
+                        .toList())));
+        return exportResponse(body, exportFormat, gzip, "accessories");
+    }
+
+    private <T extends Record> void export(OutputStream output, ExportFormat format, boolean gzip, Class<T> rowType,
+                                           Consumer<CatalogueExportWriter<T>> exporter) throws IOException {
+        try (CatalogueExportWriter<T> writer = format == ExportFormat.CSV
+                ? CatalogueExportWriter.csv(output, gzip, rowType)
+                : CatalogueExportWriter.ndjson(output, gzip, objectMapper)) {
+            exporter.accept(writer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static ResponseEntity<StreamingResponseBody> exportResponse(StreamingResponseBody body,
+                                                                        ExportFormat format, boolean gzip,
+                                                                        String name) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format.mediaType)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + "." + format.extension)
+                        .build()
+                        .toString());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        return response.body(body);
+    }
+
+    // gzip, o ile klient go nie wykluczył przez q=0
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        return Arrays.stream(acceptEncoding.split(","))
+                .map(coding -> coding.trim().toLowerCase(Locale.ROOT))
+                .anyMatch(coding -> (coding.equals(GZIP) || coding.startsWith(GZIP + ";"))
+                        && !coding.replace(" ", "").matches(".*;q=0(\\.0*)?$"));
+    }
+
+    private enum ExportFormat {
+        NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        ExportFormat(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        static ExportFormat parse(String format) {
+            return Arrays.stream(values())
+                    .filter(value -> value.extension.equalsIgnoreCase(format))
+                    .findFirst()
+                    .orElseThrow(() -> new DomainException(ErrorCode.INVALID_VALUE, "format", format));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package pl.vabanq.erp.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.vabanq.erp.domain.error.DomainException;
+import pl.vabanq.erp.domain.error.ErrorCode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Gotowe bajty JSON (UTF-8) pojedynczych encji, kluczowane id i wersją encji z ResourceVersionService.
+// Lista jest sklejana z fragmentów, więc przy niezmienionym katalogu nie ma odczytu encji, konwersji
+// ani serializacji.
+// Nieaktualne wersje nie są unieważniane - nikt o nie nie zapyta, wypiera je limit wagi.
+@Component
+public class JsonFragmentCache {
+    private static final String CACHE_NAME = "json-fragments";
+    private static final int KEY_OVERHEAD = 64;
+    private static final int BATCH_SIZE = 200;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, byte[]> cache;
+
+    public JsonFragmentCache(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                             @Value("${api.json-fragments.max-weight:33554432}") long maxWeight,
+                             @Value("${api.json-fragments.expire-after-write:PT10M}") Duration expireAfterWrite) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String key, byte[] json) -> KEY_OVERHEAD + key.length() + json.length)
+                // Zabezpieczenie przed zmianami z pominięciem aplikacji, jak w cache produktów
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    // Fragmenty zapisywane wprost do strumienia odpowiedzi. Brakujące w cache encje ładowane są paczkami po
+    // BATCH_SIZE id, więc w pamięci jest najwyżej jedna paczka. Klucz z wersją czytany jest przed odczytem encji,
+    // a fragment trafia do cache tylko, gdy wersja nie zmieniła się w trakcie odczytu - starsza treść nie trafi
+    // pod nowszą wersję. Encje usunięte w trakcie odczytu są pomijane. cacheable = false, gdy encje wczytano
+    // przed odczytem wersji i mogły się w międzyczasie zmienić - fragmenty są wtedy tylko serializowane.
+    void writeArray(OutputStream output, List<String> ids, Function<String, String> versionedKey,
+                    Function<List<String>, Map<String, ?>> loadResponses, boolean cacheable) throws IOException {
+        output.write('[');
+        boolean first = true;
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE));
+            Map<String, String> keys = new HashMap<>();
+            batch.forEach(id -> keys.put(id, versionedKey.apply(id)));
+            Map<String, byte[]> cached = cacheable ? cache.getAllPresent(keys.values()) : Map.of();
+            List<String> missing = batch.stream()
+                    .filter(id -> !cached.containsKey(keys.get(id)))
+                    .toList();
+            Map<String, ?> responses = missing.isEmpty() ? Map.of() : loadResponses.apply(missing);
+            for (String id : batch) {
+                byte[] fragment = cached.get(keys.get(id));
+                if (fragment == null) {
+                    Object response = responses.get(id);
+                    if (response == null) {
+                        continue;
+                    }
+                    fragment = serialize(response);
+                    if (cacheable && keys.get(id).equals(versionedKey.apply(id))) {
+                        cache.put(keys.get(id), fragment);
+                    }
+                }
+                if (!first) {
+                    output.write(',');
+                }
+                output.write(fragment);
+                first = false;
+            }
+            output.flush();
+        }
+        output.write(']');
+    }
+
+    private byte[] serialize(Object response) {
+        try {
+            return objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new DomainException(ErrorCode.INTERNAL_ERROR);
+        }
+    }
+}
@@ -1,30 +1,74 @@
 package pl.vabanq.erp.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import pl.vabanq.erp.api.request.ProductRequest;
+import pl.vabanq.erp.api.response.MarginReportResponse;
+import pl.vabanq.erp.api.response.ProductCostResponse;
+import pl.vabanq.erp.api.response.ProductMarginResponse;
+import pl.vabanq.erp.api.response.ProductPageResponse;
 import pl.vabanq.erp.api.response.ProductResponse;
+import pl.vabanq.erp.domain.products.cost.ProductCostService;
+import pl.vabanq.erp.domain.products.cost.model.MarginReport;
+import pl.vabanq.erp.domain.products.product.PreviewRenditionService;
 import pl.vabanq.erp.domain.products.product.ProductService;
 import pl.vabanq.erp.domain.products.product.model.Product;
+import pl.vabanq.erp.domain.products.product.model.ProductDraft;
+import pl.vabanq.erp.domain.products.product.model.ProductFile;
+import pl.vabanq.erp.domain.products.product.model.ProductImportReport;
+import pl.vabanq.erp.domain.version.ResourceVersionService;
+import pl.vabanq.erp.domain.version.model.ResourceCollection;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
+    private static final int STREAM_PAGE_SIZE = 200;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final String TEXT_CSV_VALUE = "text/csv";
 
     private final ProductService productService;
+    private final ProductCostService productCostService;
+    private final ResourceVersionService resourceVersionService;
     private final ConversionService conversionService;
+    private final ObjectMapper objectMapper;
+    private final JsonFragmentCache jsonFragmentCache;
 
     @Autowired
-    public ProductController(ProductService productService, ConversionService conversionService) {
+    public ProductController(ProductService productService, ProductCostService productCostService,
+                             ResourceVersionService resourceVersionService, ConversionService conversionService,
+                             ObjectMapper objectMapper, JsonFragmentCache jsonFragmentCache) {
         this.productService = productService;
+        this.productCostService = productCostService;
+        this.resourceVersionService = resourceVersionService;
         this.conversionService = conversionService;
+        this.objectMapper = objectMapper;
+        this.jsonFragmentCache = jsonFragmentCache;
     }
 
     @PostMapping
@@ -51,14 +95,40 @@ public class ProductController {
     }
 
 
+    // Import masowy: NDJSON (jeden ProductRequest w linii) albo CSV z nagłówkiem; odpowiedź to wynik dla każdego wiersza
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+    public ResponseEntity<ProductImportReport> importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                              InputStream body) {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        Charset charset = mediaType.getCharset() != null ? mediaType.getCharset() : StandardCharsets.UTF_8;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, charset));
+        Iterator<ProductDraft> drafts = MediaType.APPLICATION_NDJSON.isCompatibleWith(mediaType)
+                ? ProductImportReader.ndjson(reader, objectMapper,
+                        request -> conversionService.convert(request, ProductDraft.class))
+                : ProductImportReader.csv(reader);
+        return new ResponseEntity<>(productService.importProducts(drafts), HttpStatus.OK);
+    }
+
+    // Częściowa aktualizacja - zmieniane są tylko przesłane pola
+    @PatchMapping("/{id}")
+    public ResponseEntity<ProductResponse> patchProduct(@PathVariable String id,
+                                                        @RequestBody ProductRequest request) {
+        Product product = productService.patchProduct(
+                id, request.name(), request.ean(), request.accessoriesQ(),
+                request.printHours(), request.printMinutes(), request.price(),
+                request.allegroTax(), request.description()
+        );
+        ProductResponse response = conversionService.convert(product, ProductResponse.class);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
     // Endpoint do aktualizacji podglądu (preview)
     @PostMapping("/{id}/preview")
     public ResponseEntity<ProductResponse> updatePreview(@PathVariable String id,
                                                          @RequestParam("file") MultipartFile file) throws IOException {
-        byte[] fileData = file.getBytes();
         String filename = file.getOriginalFilename();
 
-        Product updatedProduct = productService.updatePreview(id, fileData, filename);
+        Product updatedProduct = productService.updatePreview(id, file.getInputStream(), filename);
         ProductResponse response = conversionService.convert(updatedProduct, ProductResponse.class);
 
         return new ResponseEntity<>(response, HttpStatus.OK);
@@ -68,10 +138,9 @@ public class ProductController {
     @PostMapping("/{id}/file")
     public ResponseEntity<ProductResponse> addFile(@PathVariable String id,
                                                    @RequestParam("file") MultipartFile file) throws IOException {
-        byte[] fileData = file.getBytes();
         String filename = file.getOriginalFilename();
 
-        Product updatedProduct = productService.addFile(id, fileData, filename);
+        Product updatedProduct = productService.addFile(id, file.getInputStream(), filename);
         ProductResponse response = conversionService.convert(updatedProduct, ProductResponse.class);
 
         return new ResponseEntity<>(response, HttpStatus.OK);
@@ -84,12 +153,249 @@ public class ProductController {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    // Pobranie pojedynczego pliku produktu - bajty idą prosto z magazynu plików, bez JSON-a i base64
+    @GetMapping("/{id}/files/{fileId}")
+    public ResponseEntity<StreamingResponseBody> downloadFile(
+            @PathVariable String id,
+            @PathVariable String fileId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return fileResponse(productService.getProductFile(id, fileId), ifNoneMatch);
+    }
+
+    @GetMapping("/{id}/preview")
+    public ResponseEntity<StreamingResponseBody> downloadPreview(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return fileResponse(productService.getPreview(id), ifNoneMatch);
+    }
+
+    // Miniatura podglądu: ?size=64|256|1024; dopóki nie jest wygenerowana, zwracany jest oryginał
+    @GetMapping(value = "/{id}/preview", params = "size")
+    public ResponseEntity<StreamingResponseBody> downloadPreviewRendition(
+            @PathVariable String id,
+            @RequestParam int size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ProductFile preview = productService.getPreview(id);
+        if (!productService.isPreviewRenditionReady(preview, size)) {
+            return fileResponse(preview, ifNoneMatch);
+        }
+        String eTag = ETags.of(preview.hash() + "-" + size);
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return ETags.notModified(eTag);
+        }
+        // Rozmiar miniatury nie jest zapisany w opisie pliku - odpowiedź bez Content-Length
+        return streamResponse(() -> productService.openPreviewRendition(preview, size),
+                PreviewRenditionService.RENDITION_CONTENT_TYPE, -1, renditionFilename(preview.filename(), size), eTag);
+    }
+
+    // Treść pliku jest adresowana skrótem, więc skrót jest mocnym ETagiem - 304 bez otwierania pliku
+    private ResponseEntity<StreamingResponseBody> fileResponse(ProductFile file, String ifNoneMatch) {
+        String eTag = ETags.of(file.hash());
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return ETags.notModified(eTag);
+        }
+        return streamResponse(() -> productService.openFileContent(file), file.contentType(), file.size(),
+                file.filename(), eTag);
+    }
+
+    // Plik otwierany dopiero w treści odpowiedzi - jeśli asynchroniczne wysłanie nigdy nie ruszy (np. klient
+    // rozłączył się wcześniej), nie zostaje otwarty kanał
+    private static ResponseEntity<StreamingResponseBody> streamResponse(Supplier<ReadableByteChannel> content,
+                                                                        String contentType, long contentLength,
+                                                                        String filename, String eTag) {
+        StreamingResponseBody body = outputStream -> {
+            try (ReadableByteChannel channel = content.get()) {
+                transfer(channel, outputStream);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(ETags.REVALIDATE)
+                .contentType(MediaType.parseMediaType(contentType))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(filename)
+                        .build()
+                        .toString());
+        if (contentLength >= 0) {
+            response.contentLength(contentLength);
+        }
+        return response.body(body);
+    }
+
+    private static String renditionFilename(String filename, int size) {
+        int dotIndex = filename.lastIndexOf('.');
+        String baseName = dotIndex < 0 ? filename : filename.substring(0, dotIndex);
+        return baseName + "_" + size + ".jpg";
+    }
+
+    // Kopia przez bufor stałego rozmiaru, bez tablicy o rozmiarze całego pliku. Strumień serwletu nie jest kanałem
+    // gniazda, więc zero-copy (transferTo) i tak nie jest tu możliwe - JDK kopiowałby przez własny bufor
+    private static void transfer(ReadableByteChannel source, OutputStream outputStream) throws IOException {
+        WritableByteChannel target = Channels.newChannel(outputStream);
+        ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+        while (source.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    // Koszt wytworzenia ze zmaterializowanego widoku - bez wczytywania produktu i akcesoriów
+    @GetMapping("/{id}/cost")
+    public ResponseEntity<ProductCostResponse> getProductCost(@PathVariable String id) {
+        ProductCostResponse response = conversionService.convert(productCostService.getProductCost(id),
+                ProductCostResponse.class);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // Raport marż: ?minMargin=&maxMargin=&accessoryId=&order=asc|desc&limit=N (domyślnie najniższe marże)
+    @GetMapping("/margins")
+    public ResponseEntity<MarginReportResponse> getMarginReport(@RequestParam(required = false) String minMargin,
+                                                                @RequestParam(required = false) String maxMargin,
+                                                                @RequestParam(required = false) String accessoryId,
+                                                                @RequestParam(defaultValue = "asc") String order,
+                                                                @RequestParam(defaultValue = "100") int limit) {
+        MarginReport report = productCostService.getMarginReport(minMargin, maxMargin, accessoryId, order, limit);
+        List<ProductMarginResponse> products = report.products().stream()
+                .map(margin -> conversionService.convert(margin, ProductMarginResponse.class))
+                .toList();
+        return new ResponseEntity<>(new MarginReportResponse(report.matched(), products), HttpStatus.OK);
+    }
+
+    @GetMapping("/by-ean/{ean}")
+    public ResponseEntity<ProductResponse> getProductByEan(
+            @PathVariable String ean,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Id z indeksu EAN w pamięci - przy niezmienionej wersji produktu odpowiedź 304 nie sięga do bazy
+        String eTag = productService.findIndexedProductId(ean)
+                .map(productId -> ETags.of(resourceVersionService.getVersion(productId)))
+                .orElse(null);
+        if (eTag != null && ETags.matches(ifNoneMatch, eTag)) {
+            return ETags.notModified(eTag);
+        }
+        Product product = productService.getProductByEan(ean);
+        ProductResponse response = conversionService.convert(product, ProductResponse.class);
+        if (eTag == null) {
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(ETags.REVALIDATE).body(response);
+    }
+
     @GetMapping
-    public ResponseEntity<List<ProductResponse>> getAllProducts() {
-        List<Product> products = productService.getAllProducts();
+    public ResponseEntity<StreamingResponseBody> getAllProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Wersja czytana przed danymi - zapis w trakcie odczytu da najwyżej zbędne 200 przy kolejnym pytaniu
+        String eTag = ETags.of(resourceVersionService.getVersion(ResourceCollection.PRODUCTS));
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return ETags.notModified(eTag);
+        }
+        // Z bazy tylko id - produkty (z cache produktów) wczytywane są wyłącznie dla fragmentów spoza cache
+        List<String> productIds = productService.getAllProductIds();
+        StreamingResponseBody body = outputStream -> jsonFragmentCache.writeArray(outputStream, productIds,
+                productId -> productId + "@" + resourceVersionService.getVersion(productId),
+                missing -> productService.getProducts(missing).stream()
+                        .collect(Collectors.toMap(Product::id,
+                                product -> conversionService.convert(product, ProductResponse.class))),
+                true);
+        return ResponseEntity.ok().eTag(eTag).cacheControl(ETags.REVALIDATE)
+                .contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // Stronicowanie po kursorze: ?after=<id ostatniego produktu>&limit=N
+    @GetMapping(params = "limit")
+    public ResponseEntity<ProductPageResponse<ProductResponse>> getProductsPage(
+            @RequestParam(required = false) String after,
+            @RequestParam int limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = ETags.of(resourceVersionService.getVersion(ResourceCollection.PRODUCTS));
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return ETags.notModified(eTag);
+        }
+        List<Product> products = productService.getProducts(after, limit);
         List<ProductResponse> response = products.stream()
                 .map(product -> conversionService.convert(product, ProductResponse.class))
                 .toList();
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        String nextCursor = products.size() == limit ? products.getLast().id() : null;
+        return ResponseEntity.ok().eTag(eTag).cacheControl(ETags.REVALIDATE)
+                .body(new ProductPageResponse<>(response, nextCursor));
+    }
+
+    // Projekcja pól: ?fields=id,name,ean,price. Gdy wszystkie pola są kolumnami produktu, czytana jest tylko
+    // projekcja bez akcesoriów i plików; inaczej pełne produkty, z których zostają wybrane pola.
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<ObjectNode>> getAllProducts(
+            @RequestParam String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        List<String> selected = ProductFields.parse(fields);
+        String eTag = ETags.of(resourceVersionService.getVersion(ResourceCollection.PRODUCTS) + "-"
+                + String.join(".", selected));
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return ETags.notModified(eTag);
+        }
+        List<ProductResponse> response = ProductFields.isSummary(selected)
+                ? productService.getAllProductSummaries().stream()
+                        .map(summary -> conversionService.convert(summary, ProductResponse.class))
+                        .toList()
+                : productService.getAllProducts().stream()
+                        .map(product -> conversionService.convert(product, ProductResponse.class))
+                        .toList();
+        return ResponseEntity.ok().eTag(eTag).cacheControl(ETags.REVALIDATE).body(project(response, selected));
+    }
+
+    @GetMapping(params = {"limit", "fields"})
+    public ResponseEntity<ProductPageResponse<ObjectNode>> getProductsPage(
+            @RequestParam(required = false) String after,
+            @RequestParam int limit,
+            @RequestParam String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        List<String> selected = ProductFields.parse(fields);
+        String eTag = ETags.of(resourceVersionService.getVersion(ResourceCollection.PRODUCTS) + "-"
+                + String.join(".", selected));
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return ETags.notModified(eTag);
+        }
+        List<ProductResponse> response;
+        if (ProductFields.isSummary(selected)) {
+            response = productService.getProductSummaries(after, limit).stream()
+                    .map(summary -> conversionService.convert(summary, ProductResponse.class))
+                    .toList();
+        } else {
+            response = productService.getProducts(after, limit).stream()
+                    .map(product -> conversionService.convert(product, ProductResponse.class))
+                    .toList();
+        }
+        String nextCursor = response.size() == limit ? response.getLast().id() : null;
+        return ResponseEntity.ok().eTag(eTag).cacheControl(ETags.REVALIDATE)
+                .body(new ProductPageResponse<>(project(response, selected), nextCursor));
+    }
+
+    private List<ObjectNode> project(List<ProductResponse> response, List<String> fields) {
+        return response.stream()
+                .map(product -> objectMapper.<ObjectNode>valueToTree(product).retain(fields))
+                .toList();
+    }
+
+    // Strumień NDJSON - produkty czytane stronami po id, w pamięci jest najwyżej jedna strona
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProducts() {
+        StreamingResponseBody body = outputStream -> {
+            String after = null;
+            List<Product> page;
+            do {
+                page = productService.getProducts(after, STREAM_PAGE_SIZE);
+                for (Product product : page) {
+                    outputStream.write(objectMapper.writeValueAsBytes(
+                            conversionService.convert(product, ProductResponse.class)));
+                    outputStream.write('\n');
+                }
+                outputStream.flush();
+                after = page.isEmpty() ? after : page.getLast().id();
+            } while (page.size() == STREAM_PAGE_SIZE);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 }
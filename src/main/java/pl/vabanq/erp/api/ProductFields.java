@@ -0,0 +1,39 @@
+package pl.vabanq.erp.api;
+
+import pl.vabanq.erp.api.response.ProductResponse;
+import pl.vabanq.erp.domain.error.DomainException;
+import pl.vabanq.erp.domain.error.ErrorCode;
+
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+// Wybór pól odpowiedzi produktu (?fields=id,name,ean,price). Pola z SUMMARY_FIELDS są czytane projekcją
+// ProductSummary, pozostałe (akcesoria i pliki) wymagają pełnego produktu.
+final class ProductFields {
+    private static final List<String> ALL_FIELDS = Arrays.stream(ProductResponse.class.getRecordComponents())
+            .map(RecordComponent::getName)
+            .toList();
+    private static final Set<String> SUMMARY_FIELDS = Set.of("id", "name", "ean", "printTime", "price",
+            "allegroTax", "description");
+
+    private ProductFields() {
+    }
+
+    // Wybrane pola w kolejności ProductResponse, żeby ta sama projekcja miała zawsze ten sam kształt i ETag
+    static List<String> parse(String fields) {
+        List<String> requested = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .toList();
+        if (requested.isEmpty() || !ALL_FIELDS.containsAll(requested)) {
+            throw new DomainException(ErrorCode.INVALID_VALUE, "fields", fields);
+        }
+        return ALL_FIELDS.stream().filter(requested::contains).toList();
+    }
+
+    static boolean isSummary(List<String> fields) {
+        return SUMMARY_FIELDS.containsAll(fields);
+    }
+}
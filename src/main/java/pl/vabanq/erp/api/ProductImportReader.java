@@ -0,0 +1,196 @@
+package pl.vabanq.erp.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.util.Pair;
+import pl.vabanq.erp.api.request.ProductRequest;
+import pl.vabanq.erp.domain.error.DomainException;
+import pl.vabanq.erp.domain.error.ErrorCode;
+import pl.vabanq.erp.domain.products.product.model.ProductDraft;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.function.Function;
+
+// Strumieniowe czytanie importu produktów - w pamięci jest tylko bieżący rekord.
+// Rekord, którego nie da się odczytać, zgłaszany jest wyjątkiem z next(), a czytanie może trwać dalej.
+abstract class ProductImportReader implements Iterator<ProductDraft> {
+    private final BufferedReader reader;
+    private String nextRecord;
+
+    private ProductImportReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    // NDJSON: jeden obiekt ProductRequest w linii, puste linie pomijane
+    static Iterator<ProductDraft> ndjson(BufferedReader reader, ObjectMapper objectMapper,
+                                         Function<ProductRequest, ProductDraft> toDraft) {
+        return new ProductImportReader(reader) {
+            @Override
+            ProductDraft parse(String record) {
+                try {
+                    return toDraft.apply(objectMapper.readValue(record, ProductRequest.class));
+                } catch (JsonProcessingException e) {
+                    throw new DomainException(ErrorCode.INVALID_VALUE, "row", e.getOriginalMessage());
+                }
+            }
+        };
+    }
+
+    // CSV z nagłówkiem: name,ean,accessories,printHours,printMinutes,price,allegroTax,description;
+    // accessories w postaci "id:ilość;id:ilość", pola z przecinkami lub znakami nowej linii w cudzysłowach
+    static Iterator<ProductDraft> csv(BufferedReader reader) {
+        Map<String, Integer> header = new HashMap<>();
+        try {
+            String headerLine = reader.readLine();
+            List<String> columns = headerLine != null ? CsvParser.split(headerLine) : List.of();
+            for (int i = 0; i < columns.size(); i++) {
+                header.put(columns.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return new ProductImportReader(reader) {
+            @Override
+            ProductDraft parse(String record) {
+                List<String> fields = CsvParser.split(record);
+                return new ProductDraft(
+                        field(fields, "name"),
+                        field(fields, "ean"),
+                        accessories(field(fields, "accessories")),
+                        integer(fields, "printhours"),
+                        integer(fields, "printminutes"),
+                        field(fields, "price"),
+                        field(fields, "allegrotax"),
+                        field(fields, "description")
+                );
+            }
+
+            @Override
+            boolean isComplete(String record) {
+                return CsvParser.isComplete(record);
+            }
+
+            private String field(List<String> fields, String name) {
+                Integer index = header.get(name);
+                if (index == null || index >= fields.size() || fields.get(index).isEmpty()) {
+                    return null;
+                }
+                return fields.get(index);
+            }
+
+            private Integer integer(List<String> fields, String name) {
+                String value = field(fields, name);
+                try {
+                    return value != null ? Integer.valueOf(value.trim()) : null;
+                } catch (NumberFormatException e) {
+                    throw new DomainException(ErrorCode.INVALID_VALUE, name, value);
+                }
+            }
+
+            private List<Pair<Double, String>> accessories(String value) {
+                if (value == null) {
+                    return null;
+                }
+                List<Pair<Double, String>> accessoriesQ = new ArrayList<>();
+                for (String entry : value.split(";")) {
+                    int separator = entry.lastIndexOf(':');
+                    try {
+                        accessoriesQ.add(Pair.of(Double.valueOf(entry.substring(separator + 1).trim()),
+                                entry.substring(0, separator).trim()));
+                    } catch (RuntimeException e) {
+                        throw new DomainException(ErrorCode.INVALID_VALUE, "accessories", value);
+                    }
+                }
+                return accessoriesQ;
+            }
+        };
+    }
+
+    abstract ProductDraft parse(String record);
+
+    boolean isComplete(String record) {
+        return true;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextRecord == null) {
+            nextRecord = readRecord();
+        }
+        return nextRecord != null;
+    }
+
+    @Override
+    public ProductDraft next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String record = nextRecord;
+        nextRecord = null;
+        return parse(record);
+    }
+
+    private String readRecord() {
+        try {
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && line.isBlank());
+            if (line == null) {
+                return null;
+            }
+            StringBuilder record = new StringBuilder(line);
+            while (!isComplete(record.toString()) && (line = reader.readLine()) != null) {
+                record.append('\n').append(line);
+            }
+            return record.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Minimalny parser CSV (RFC 4180): separator ',', pola w cudzysłowach, "" jako cudzysłów w polu
+    private static final class CsvParser {
+        static boolean isComplete(String record) {
+            int quotes = 0;
+            for (int i = 0; i < record.length(); i++) {
+                if (record.charAt(i) == '"') {
+                    quotes++;
+                }
+            }
+            return quotes % 2 == 0;
+        }
+
+        static List<String> split(String record) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < record.length(); i++) {
+                char c = record.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
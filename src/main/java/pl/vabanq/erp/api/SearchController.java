@@ -0,0 +1,38 @@
+package pl.vabanq.erp.api;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import pl.vabanq.erp.api.response.SearchHitResponse;
+import pl.vabanq.erp.domain.search.SearchService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    private final SearchService searchService;
+    private final ConversionService conversionService;
+
+    @Autowired
+    public SearchController(SearchService searchService, ConversionService conversionService) {
+        this.searchService = searchService;
+        this.conversionService = conversionService;
+    }
+
+    // Wyszukiwanie po produktach i akcesoriach: ?q=<słowa>&limit=N; słowa dopasowywane także prefiksem i z literówką
+    @GetMapping
+    public ResponseEntity<List<SearchHitResponse>> search(@RequestParam String q,
+                                                          @RequestParam(defaultValue = "20") int limit) {
+        List<SearchHitResponse> response = searchService.search(q, limit).stream()
+                .map(hit -> conversionService.convert(hit, SearchHitResponse.class))
+                .toList();
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+}
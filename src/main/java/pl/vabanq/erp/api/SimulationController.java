@@ -0,0 +1,41 @@
+package pl.vabanq.erp.api;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import pl.vabanq.erp.api.request.PriceChangeRequest;
+import pl.vabanq.erp.api.response.PriceSimulationResponse;
+import pl.vabanq.erp.api.response.SimulatedProductCostResponse;
+import pl.vabanq.erp.domain.products.cost.ProductCostService;
+import pl.vabanq.erp.domain.products.cost.model.PriceSimulation;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/simulations")
+public class SimulationController {
+
+    private final ProductCostService productCostService;
+    private final ConversionService conversionService;
+
+    @Autowired
+    public SimulationController(ProductCostService productCostService, ConversionService conversionService) {
+        this.productCostService = productCostService;
+        this.conversionService = conversionService;
+    }
+
+    // Co by było, gdyby: nowe ceny akcesoriów -> zmiana kosztów i marż produktów; nic nie jest zapisywane
+    @PostMapping("/price-change")
+    public ResponseEntity<PriceSimulationResponse> simulatePriceChange(@RequestBody PriceChangeRequest request) {
+        PriceSimulation simulation = productCostService.simulatePriceChange(request.prices());
+        List<SimulatedProductCostResponse> products = simulation.products().stream()
+                .map(product -> conversionService.convert(product, SimulatedProductCostResponse.class))
+                .toList();
+        return new ResponseEntity<>(new PriceSimulationResponse(simulation.affected(), products), HttpStatus.OK);
+    }
+}
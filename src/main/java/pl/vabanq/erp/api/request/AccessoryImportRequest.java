@@ -0,0 +1,9 @@
+package pl.vabanq.erp.api.request;
+
+import java.util.List;
+
+public record AccessoryImportRequest(
+        List<FilamentAccessoryImportRequest> filaments,
+        List<PackagingAccessoryImportRequest> packaging,
+        List<FastenersAccessoryImportRequest> fasteners
+) {}
@@ -0,0 +1,9 @@
+package pl.vabanq.erp.api.request;
+
+// Wiersz importu masowego - id istniejącego akcesorium aktualizuje je, bez id tworzy nowe
+public record FastenersAccessoryImportRequest(
+        String id,
+        String name,
+        String netPricePerQuantity,
+        String quantity
+) {}
@@ -0,0 +1,15 @@
+package pl.vabanq.erp.api.request;
+
+// Wiersz importu masowego - id istniejącego akcesorium aktualizuje je, bez id tworzy nowe
+public record FilamentAccessoryImportRequest(
+        String id,
+        String name,
+        String producer,
+        String filamentType,
+        String printTemperature,
+        String deskTemperature,
+        String pricePerKg,
+        String color,
+        String description,
+        String quantity
+) {}
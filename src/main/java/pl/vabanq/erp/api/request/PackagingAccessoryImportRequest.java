@@ -0,0 +1,11 @@
+package pl.vabanq.erp.api.request;
+
+// Wiersz importu masowego - id istniejącego akcesorium aktualizuje je, bez id tworzy nowe
+public record PackagingAccessoryImportRequest(
+        String id,
+        String name,
+        String packagingSize,
+        String dimensions,
+        String netPricePerQuantity,
+        String quantity
+) {}
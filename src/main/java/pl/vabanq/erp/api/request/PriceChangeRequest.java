@@ -0,0 +1,8 @@
+package pl.vabanq.erp.api.request;
+
+import java.util.Map;
+
+// id akcesorium -> nowa cena (filament za kg, pozostałe netto za sztukę)
+public record PriceChangeRequest(
+        Map<String, String> prices
+) {}
@@ -0,0 +1,23 @@
+package pl.vabanq.erp.api.response;
+
+import pl.vabanq.erp.domain.products.accessory.model.AccessoryType;
+
+import java.math.BigDecimal;
+
+// Wiersz eksportu akcesoriów - suma pól wszystkich typów, pola nieużywane przez dany typ są puste
+public record AccessoryExportRow(
+        AccessoryType type,
+        String id,
+        String name,
+        String producer,
+        String filamentType,
+        Double printTemperature,
+        Double deskTemperature,
+        BigDecimal pricePerKg,
+        String color,
+        String description,
+        String packagingSize,
+        String dimensions,
+        BigDecimal netPricePerQuantity,
+        double quantity
+) {}
@@ -0,0 +1,8 @@
+package pl.vabanq.erp.api.response;
+
+import java.util.List;
+
+public record MarginReportResponse(
+        int matched,
+        List<ProductMarginResponse> products
+) {}
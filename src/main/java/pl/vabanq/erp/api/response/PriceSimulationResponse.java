@@ -0,0 +1,8 @@
+package pl.vabanq.erp.api.response;
+
+import java.util.List;
+
+public record PriceSimulationResponse(
+        int affected,
+        List<SimulatedProductCostResponse> products
+) {}
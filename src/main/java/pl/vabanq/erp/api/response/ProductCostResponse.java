@@ -0,0 +1,12 @@
+package pl.vabanq.erp.api.response;
+
+import java.math.BigDecimal;
+
+public record ProductCostResponse(
+        String productId,
+        BigDecimal filament,
+        BigDecimal packaging,
+        BigDecimal fasteners,
+        BigDecimal machine,
+        BigDecimal total
+) {}
@@ -0,0 +1,19 @@
+package pl.vabanq.erp.api.response;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Wiersz eksportu produktów - akcesoria jako "id:ilość" (format importu CSV), pliki tylko przez id
+public record ProductExportRow(
+        String id,
+        String name,
+        String ean,
+        List<String> accessories,
+        int printHours,
+        int printMinutes,
+        BigDecimal price,
+        BigDecimal allegroTax,
+        String description,
+        String previewId,
+        List<String> fileIds
+) {}
@@ -0,0 +1,11 @@
+package pl.vabanq.erp.api.response;
+
+// Opis pliku bez treści - plik pobierany osobno spod url
+public record ProductFileResponse(
+        String id,
+        String filename,
+        long size,
+        String hash,
+        String contentType,
+        String url
+) {}
@@ -0,0 +1,13 @@
+package pl.vabanq.erp.api.response;
+
+import java.math.BigDecimal;
+
+public record ProductMarginResponse(
+        String productId,
+        String name,
+        BigDecimal price,
+        BigDecimal allegroTax,
+        BigDecimal cost,
+        BigDecimal margin,
+        BigDecimal marginPercent
+) {}
@@ -1,7 +1,6 @@
 package pl.vabanq.erp.api.response;
 
 import pl.vabanq.erp.domain.products.product.model.PrintTime;
-import pl.vabanq.erp.domain.products.product.model.ProductFile;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -15,6 +14,6 @@ public record ProductResponse(
         BigDecimal price,
         BigDecimal allegroTax,
         String description,
-        ProductFile preview,
-        List<ProductFile> files
+        ProductFileResponse preview,
+        List<ProductFileResponse> files
 ) {}
@@ -0,0 +1,10 @@
+package pl.vabanq.erp.api.response;
+
+import pl.vabanq.erp.domain.search.model.SearchResultType;
+
+public record SearchHitResponse(
+        String id,
+        SearchResultType type,
+        String name,
+        int score
+) {}
@@ -0,0 +1,14 @@
+package pl.vabanq.erp.api.response;
+
+import java.math.BigDecimal;
+
+public record SimulatedProductCostResponse(
+        String productId,
+        String name,
+        BigDecimal currentCost,
+        BigDecimal simulatedCost,
+        BigDecimal costDelta,
+        BigDecimal currentMargin,
+        BigDecimal simulatedMargin,
+        BigDecimal marginDelta
+) {}
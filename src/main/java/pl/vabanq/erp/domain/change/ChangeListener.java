@@ -0,0 +1,12 @@
+package pl.vabanq.erp.domain.change;
+
+import pl.vabanq.erp.domain.Identifiable;
+
+import java.util.Collection;
+
+// Powiadomienie o zapisanych zmianach obiektów - np. do unieważniania cache i indeksów.
+// Operacje masowe przekazują wszystkie zmienione obiekty w jednym wywołaniu.
+@FunctionalInterface
+public interface ChangeListener {
+    void onChange(ChangeType type, Collection<? extends Identifiable> changed);
+}
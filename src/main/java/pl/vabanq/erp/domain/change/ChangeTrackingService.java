@@ -1,6 +1,7 @@
 package pl.vabanq.erp.domain.change;
 
 
+import org.springframework.data.util.Pair;
 import pl.vabanq.erp.domain.Identifiable;
 import pl.vabanq.erp.domain.error.DomainException;
 import pl.vabanq.erp.domain.error.ErrorCode;
@@ -17,17 +18,35 @@ import java.util.concurrent.atomic.AtomicLong;
 public class ChangeTrackingService {
     private final List<ChangeLog> changeLogs = new CopyOnWriteArrayList<>();
     private final AtomicLong idGenerator = new AtomicLong(1);
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
 
     public void logCreate(Identifiable identifiable) {
-        ChangeLog log = new ChangeLog(
-                idGenerator.getAndIncrement(),
-                identifiable.name(),
-                identifiable.id(),
-                "CREATE",
-                LocalDateTime.now(),
-                Collections.emptyList() // Brak szczegółów dla operacji CREATE
-        );
-        changeLogs.add(log);
+        logCreates(List.of(identifiable));
+    }
+
+    // Wpisy dodawane do dziennika jednym wywołaniem, słuchacze powiadamiani raz dla całej listy
+    public void logCreates(List<? extends Identifiable> created) {
+        if (created.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<ChangeLog> logs = new ArrayList<>(created.size());
+        for (Identifiable identifiable : created) {
+            logs.add(new ChangeLog(
+                    idGenerator.getAndIncrement(),
+                    identifiable.name(),
+                    identifiable.id(),
+                    ChangeType.CREATE.name(),
+                    now,
+                    Collections.emptyList() // Brak szczegółów dla operacji CREATE
+            ));
+        }
+        changeLogs.addAll(logs);
+        notifyListeners(ChangeType.CREATE, created);
     }
 
     public void logDelete(Identifiable identifiable) {
@@ -35,26 +54,50 @@ public class ChangeTrackingService {
                 idGenerator.getAndIncrement(),
                 identifiable.name(),
                 identifiable.id(),
-                "DELETE",
+                ChangeType.DELETE.name(),
                 LocalDateTime.now(),
                 Collections.emptyList() // Brak szczegółów dla operacji DELETE
         );
         changeLogs.add(log);
+        notifyListeners(ChangeType.DELETE, List.of(identifiable));
     }
 
     public void logUpdate(Identifiable oldObj, Identifiable newObj) {
-        List<ChangeDetail> details = compareRecords(oldObj, newObj);
-        if (!details.isEmpty()) {
-            ChangeLog log = new ChangeLog(
-                    idGenerator.getAndIncrement(),
-                    oldObj.name(),
-                    oldObj.id(),
-                    "UPDATE",
-                    LocalDateTime.now(),
-                    details
-            );
-            changeLogs.add(log);
+        logUpdates(List.of(Pair.of(oldObj, newObj)));
+    }
+
+    // Pary (stary, nowy) - jak logUpdate, ale z jednym dopisaniem do dziennika i jednym powiadomieniem
+    public void logUpdates(List<Pair<? extends Identifiable, ? extends Identifiable>> updates) {
+        if (updates.isEmpty()) {
+            return;
         }
+        LocalDateTime now = LocalDateTime.now();
+        List<ChangeLog> logs = new ArrayList<>();
+        List<Identifiable> updated = new ArrayList<>(updates.size());
+        for (Pair<? extends Identifiable, ? extends Identifiable> update : updates) {
+            Identifiable oldObj = update.getFirst();
+            List<ChangeDetail> details = compareRecords(oldObj, update.getSecond());
+            if (!details.isEmpty()) {
+                logs.add(new ChangeLog(
+                        idGenerator.getAndIncrement(),
+                        oldObj.name(),
+                        oldObj.id(),
+                        ChangeType.UPDATE.name(),
+                        now,
+                        details
+                ));
+                updated.add(update.getSecond());
+            }
+        }
+        changeLogs.addAll(logs);
+        // Aktualizacja bez zmienionych pól nie jest zmianą - słuchacze (cache, indeksy, wersje) jej nie widzą
+        if (!updated.isEmpty()) {
+            notifyListeners(ChangeType.UPDATE, updated);
+        }
+    }
+
+    private void notifyListeners(ChangeType type, List<? extends Identifiable> changed) {
+        listeners.forEach(listener -> listener.onChange(type, changed));
     }
 
     private List<ChangeDetail> compareRecords(Object oldObj, Object newObj) {
@@ -0,0 +1,7 @@
+package pl.vabanq.erp.domain.change;
+
+public enum ChangeType {
+    CREATE,
+    UPDATE,
+    DELETE
+}
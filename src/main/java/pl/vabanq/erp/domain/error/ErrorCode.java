@@ -2,6 +2,7 @@ package pl.vabanq.erp.domain.error;
 
 public enum ErrorCode {
     INVALID_VALUE("Pole: '%s' ma nieprawidłową wartość: '%s'"),
+    DUPLICATE_VALUE("Pole: '%s' o wartości '%s' jest już zajęte"),
     NOT_FOUND("Nie znaleziono"),
     INTERNAL_ERROR("Błąd serwera");
 
@@ -5,7 +5,10 @@ import pl.vabanq.erp.domain.products.accessory.model.FastenersAccessory;
 import pl.vabanq.erp.domain.products.accessory.model.FilamentAccessory;
 import pl.vabanq.erp.domain.products.accessory.model.PackagingAccessory;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface AccessoryRepository {
     void saveFilament(FilamentAccessory filamentAccessory);
@@ -24,7 +27,18 @@ public interface AccessoryRepository {
 
     FastenersAccessory getFastenersAccessory(String id);
 
+    // Zapisuje tylko pola, które różnią się między oldAccessory a updatedAccessory (ten sam typ akcesorium)
+    void patchAccessory(Identifiable oldAccessory, Identifiable updatedAccessory);
+
+    // Zapis masowy w jednej transakcji: nowe akcesoria (z wpisem w rejestrze typów) i pełne nadpisanie istniejących
+    void saveAccessories(List<? extends Identifiable> created, List<? extends Identifiable> updated);
+
     Identifiable getAccessory(String id);
 
+    Map<String, Identifiable> getAccessories(Collection<String> ids);
+
     List<FastenersAccessory> getAllFasteners();
+
+    // Wszystkie akcesoria (filamenty, opakowania, łączniki) czytane kursorem i przekazywane porcjami po chunkSize
+    void streamAccessories(int chunkSize, Consumer<List<Identifiable>> chunkConsumer);
 }
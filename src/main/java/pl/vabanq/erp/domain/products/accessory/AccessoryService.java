@@ -2,9 +2,9 @@ package pl.vabanq.erp.domain.products.accessory;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import pl.vabanq.erp.domain.products.accessory.model.FastenersAccessory;
-import pl.vabanq.erp.domain.products.accessory.model.FilamentAccessory;
-import pl.vabanq.erp.domain.products.accessory.model.PackagingAccessory;
+import org.springframework.data.util.Pair;
+import pl.vabanq.erp.domain.Identifiable;
+import pl.vabanq.erp.domain.products.accessory.model.*;
 import pl.vabanq.erp.domain.change.ChangeTrackingService;
 import pl.vabanq.erp.domain.error.DomainException;
 import pl.vabanq.erp.domain.error.ErrorCode;
@@ -12,10 +12,19 @@ import pl.vabanq.erp.domain.utility.UUIDGenerator;
 import pl.vabanq.erp.domain.utility.ValidationUtils;
 
 import java.math.BigDecimal;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 public class AccessoryService {
     private static final Logger LOGGER = LoggerFactory.getLogger(AccessoryService.class);
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+    private static final int EXPORT_CHUNK_SIZE = 500;
+    private static final String CREATE = "CREATE";
+    private static final String UPDATE = "UPDATE";
+    private static final String UNCHANGED = "UNCHANGED";
     private final ChangeTrackingService changeTrackingService;
     private final AccessoryRepository accessoryRepository;
 
@@ -93,7 +102,7 @@ public class AccessoryService {
                     updatedQuantity
             );
 
-            accessoryRepository.saveFilament(updatedFilament);
+            accessoryRepository.patchAccessory(oldFilament, updatedFilament);
             changeTrackingService.logUpdate(oldFilament, updatedFilament);
             LOGGER.info("Successfully updated FilamentAccessory: {}", updatedFilament);
             return updatedFilament;
@@ -158,7 +167,7 @@ public class AccessoryService {
                     updatedQuantity
             );
 
-            accessoryRepository.savePackagingAccessory(updatedPackagingAccessory);
+            accessoryRepository.patchAccessory(oldPackagingAccessory, updatedPackagingAccessory);
             changeTrackingService.logUpdate(oldPackagingAccessory, updatedPackagingAccessory);
             LOGGER.info("Successfully updated PackagingAccessory: {}", updatedPackagingAccessory);
             return updatedPackagingAccessory;
@@ -213,7 +222,7 @@ public class AccessoryService {
                     updatedQuantity
             );
 
-            accessoryRepository.saveFastenersAccessory(updatedAccessory);
+            accessoryRepository.patchAccessory(oldAccessory, updatedAccessory);
             changeTrackingService.logUpdate(oldAccessory, updatedAccessory);
             LOGGER.info("Successfully updated FastenersAccessory: {}", updatedAccessory);
             return updatedAccessory;
@@ -224,6 +233,175 @@ public class AccessoryService {
         }
     }
 
+    // Import masowy (np. katalog dostawcy): porcje po IMPORT_CHUNK_SIZE wierszy - jedno wyszukanie istniejących
+    // akcesoriów, jedna transakcja z wsadowymi INSERT-ami i UPDATE-ami i jeden wpis do dziennika zmian na porcję.
+    // Błędny wiersz nie przerywa importu.
+    public AccessoryImportReport importAccessories(List<? extends AccessoryDraft> drafts) {
+        LOGGER.info("Attempting to import {} Accessories", drafts.size());
+        Map<AccessoryType, Integer> rowCounters = new EnumMap<>(AccessoryType.class);
+        List<ImportRow> rows = drafts.stream()
+                .map(draft -> {
+                    AccessoryType type = typeOf(draft);
+                    return new ImportRow(type, rowCounters.merge(type, 1, Integer::sum), draft);
+                })
+                .toList();
+
+        List<AccessoryImportReport.RowResult> results = new ArrayList<>(rows.size());
+        Set<String> seenIds = new HashSet<>();
+        for (int from = 0; from < rows.size(); from += IMPORT_CHUNK_SIZE) {
+            importChunk(rows.subList(from, Math.min(rows.size(), from + IMPORT_CHUNK_SIZE)), seenIds, results);
+        }
+
+        results.sort(Comparator.comparing(AccessoryImportReport.RowResult::type)
+                .thenComparingInt(AccessoryImportReport.RowResult::row));
+        int created = count(results, CREATE);
+        int updated = count(results, UPDATE);
+        int unchanged = count(results, UNCHANGED);
+        int failed = results.size() - created - updated - unchanged;
+        LOGGER.info("Imported Accessories: {} created, {} updated, {} unchanged, {} rows failed",
+                created, updated, unchanged, failed);
+        return new AccessoryImportReport(created, updated, unchanged, failed, results);
+    }
+
+    private record ImportRow(AccessoryType type, int row, AccessoryDraft draft) {
+    }
+
+    private void importChunk(List<ImportRow> chunk, Set<String> seenIds, List<AccessoryImportReport.RowResult> results) {
+        Map<String, Identifiable> existing = accessoryRepository.getAccessories(chunk.stream()
+                .map(row -> row.draft().id())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+
+        List<Identifiable> created = new ArrayList<>();
+        List<Pair<? extends Identifiable, ? extends Identifiable>> updates = new ArrayList<>();
+        List<Pair<ImportRow, Identifiable>> written = new ArrayList<>();
+        for (ImportRow row : chunk) {
+            String id = row.draft().id();
+            try {
+                if (id != null && (id.isBlank() || !seenIds.add(id))) {
+                    throw new DomainException(ErrorCode.INVALID_VALUE, "id", id);
+                }
+                Identifiable oldAccessory = id != null ? existing.get(id) : null;
+                if (oldAccessory == null) {
+                    Identifiable accessory = create(id != null ? id : UUIDGenerator.generateUUID(), row.draft());
+                    created.add(accessory);
+                    written.add(Pair.of(row, accessory));
+                    continue;
+                }
+                Identifiable updatedAccessory = merge(oldAccessory, row.draft());
+                if (updatedAccessory.equals(oldAccessory)) {
+                    results.add(new AccessoryImportReport.RowResult(row.type(), row.row(), id, UNCHANGED, null));
+                    continue;
+                }
+                updates.add(Pair.of(oldAccessory, updatedAccessory));
+                written.add(Pair.of(row, updatedAccessory));
+            } catch (DomainException e) {
+                results.add(new AccessoryImportReport.RowResult(row.type(), row.row(), id, null, e.getMessage()));
+            }
+        }
+        if (written.isEmpty()) {
+            return;
+        }
+
+        try {
+            accessoryRepository.saveAccessories(created, updates.stream()
+                    .<Identifiable>map(Pair::getSecond)
+                    .toList());
+        } catch (RuntimeException e) {
+            LOGGER.error("Error importing chunk of {} Accessories", written.size(), e);
+            written.forEach(row -> results.add(new AccessoryImportReport.RowResult(row.getFirst().type(),
+                    row.getFirst().row(), row.getFirst().draft().id(), null, ErrorCode.INTERNAL_ERROR.getMessage())));
+            return;
+        }
+        changeTrackingService.logCreates(created);
+        changeTrackingService.logUpdates(updates);
+        Set<Identifiable> createdSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        createdSet.addAll(created);
+        written.forEach(row -> results.add(new AccessoryImportReport.RowResult(row.getFirst().type(),
+                row.getFirst().row(), row.getSecond().id(), createdSet.contains(row.getSecond()) ? CREATE : UPDATE,
+                null)));
+    }
+
+    private static Identifiable create(String id, AccessoryDraft draft) {
+        return switch (draft) {
+            case FilamentAccessoryDraft filament -> {
+                Validator.validateFilament(filament.name(), filament.producer(), filament.filamentType(),
+                        filament.printTemperature(), filament.deskTemperature(), filament.pricePerKg(),
+                        filament.color(), filament.quantity());
+                yield new FilamentAccessory(id, filament.name(), filament.producer(), filament.filamentType(),
+                        Double.parseDouble(filament.printTemperature()), Double.parseDouble(filament.deskTemperature()),
+                        new BigDecimal(filament.pricePerKg()), filament.color(), filament.description(),
+                        Double.parseDouble(filament.quantity()));
+            }
+            case PackagingAccessoryDraft packaging -> {
+                Validator.validatePackagingAccessory(packaging.name(), packaging.packagingSize(), packaging.dimensions(),
+                        packaging.netPricePerQuantity(), packaging.quantity());
+                yield new PackagingAccessory(id, packaging.name(), packaging.packagingSize(), packaging.dimensions(),
+                        new BigDecimal(packaging.netPricePerQuantity()), Double.parseDouble(packaging.quantity()));
+            }
+            case FastenersAccessoryDraft fasteners -> {
+                Validator.validateFastenersAccessory(fasteners.name(), fasteners.netPricePerQuantity(),
+                        fasteners.quantity());
+                yield new FastenersAccessory(id, fasteners.name(), new BigDecimal(fasteners.netPricePerQuantity()),
+                        Double.parseDouble(fasteners.quantity()));
+            }
+        };
+    }
+
+    // W odróżnieniu od update*: brak pola zostawia starą wartość, ale błędna wartość odrzuca cały wiersz
+    private static Identifiable merge(Identifiable oldAccessory, AccessoryDraft draft) {
+        return switch (draft) {
+            case FilamentAccessoryDraft filament when oldAccessory instanceof FilamentAccessory old ->
+                    new FilamentAccessory(
+                            old.id(),
+                            Validator.merge("name", filament.name(), ValidationUtils::isNameValid, Function.identity(), old.name()),
+                            Validator.merge("producer", filament.producer(), Validator::isProducerValid, Function.identity(), old.producer()),
+                            Validator.merge("filamentType", filament.filamentType(), Validator::isFilamentTypeValid, Function.identity(), old.filamentType()),
+                            Validator.merge("printTemperature", filament.printTemperature(), Validator::isTemperatureValid, Double::parseDouble, old.printTemperature()),
+                            Validator.merge("deskTemperature", filament.deskTemperature(), Validator::isTemperatureValid, Double::parseDouble, old.deskTemperature()),
+                            Validator.merge("pricePerKg", filament.pricePerKg(), ValidationUtils::isPriceValid, BigDecimal::new, old.pricePerKg()),
+                            Validator.merge("color", filament.color(), Validator::isColorValid, Function.identity(), old.color()),
+                            Validator.merge("description", filament.description(), ValidationUtils::isDescriptionValid, Function.identity(), old.description()),
+                            Validator.merge("quantity", filament.quantity(), Validator::isQuantityValid, Double::parseDouble, old.quantity())
+                    );
+            case PackagingAccessoryDraft packaging when oldAccessory instanceof PackagingAccessory old ->
+                    new PackagingAccessory(
+                            old.id(),
+                            Validator.merge("name", packaging.name(), ValidationUtils::isNameValid, Function.identity(), old.name()),
+                            Validator.merge("packagingSize", packaging.packagingSize(), Validator::isPackagingSizeValid, Function.identity(), old.packagingSize()),
+                            Validator.merge("dimensions", packaging.dimensions(), Validator::isDimensionsValid, Function.identity(), old.dimensions()),
+                            Validator.merge("netPricePerQuantity", packaging.netPricePerQuantity(), ValidationUtils::isPriceValid, BigDecimal::new, old.netPricePerQuantity()),
+                            Validator.merge("quantity", packaging.quantity(), Validator::isQuantityValid, Double::parseDouble, old.quantity())
+                    );
+            case FastenersAccessoryDraft fasteners when oldAccessory instanceof FastenersAccessory old ->
+                    new FastenersAccessory(
+                            old.id(),
+                            Validator.merge("name", fasteners.name(), ValidationUtils::isNameValid, Function.identity(), old.name()),
+                            Validator.merge("netPricePerQuantity", fasteners.netPricePerQuantity(), ValidationUtils::isPriceValid, BigDecimal::new, old.netPricePerQuantity()),
+                            Validator.merge("quantity", fasteners.quantity(), Validator::isQuantityValid, Double::parseDouble, old.quantity())
+                    );
+            // Id istniejącego akcesorium innego typu
+            default -> throw new DomainException(ErrorCode.INVALID_VALUE, "id", draft.id());
+        };
+    }
+
+    private static AccessoryType typeOf(AccessoryDraft draft) {
+        return switch (draft) {
+            case FilamentAccessoryDraft ignored -> AccessoryType.FILAMENT;
+            case PackagingAccessoryDraft ignored -> AccessoryType.PACKAGING;
+            case FastenersAccessoryDraft ignored -> AccessoryType.FASTENERS;
+        };
+    }
+
+    private static int count(List<AccessoryImportReport.RowResult> results, String operation) {
+        return (int) results.stream().filter(result -> operation.equals(result.operation())).count();
+    }
+
+    // Akcesorium dowolnego typu; NOT_FOUND, gdy nie istnieje
+    public Identifiable getAccessory(String id) {
+        return accessoryRepository.getAccessory(id);
+    }
+
     public List<FilamentAccessory> getAllFilaments() {
         LOGGER.info("Fetching all FilamentAccessories");
         return accessoryRepository.getAllFilaments();
@@ -239,8 +417,25 @@ public class AccessoryService {
         return accessoryRepository.getAllFasteners();
     }
 
+    // Eksport wszystkich akcesoriów porcjami po EXPORT_CHUNK_SIZE
+    public void exportAccessories(Consumer<List<Identifiable>> chunkConsumer) {
+        LOGGER.info("Exporting all Accessories");
+        accessoryRepository.streamAccessories(EXPORT_CHUNK_SIZE, chunkConsumer);
+    }
+
     private static class Validator {
 
+        static <T> T merge(String fieldName, String value, Predicate<String> isValid, Function<String, T> parse,
+                           T currentValue) {
+            if (value == null) {
+                return currentValue;
+            }
+            if (!isValid.test(value)) {
+                throw new DomainException(ErrorCode.INVALID_VALUE, fieldName, value);
+            }
+            return parse.apply(value);
+        }
+
         static void validateFilament(String name, String producer, String filamentType, String printTemperature,
                                      String deskTemperature, String pricePerKg, String color, String quantity) {
             ValidationUtils.validateName(name);
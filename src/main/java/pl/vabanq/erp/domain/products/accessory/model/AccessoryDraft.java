@@ -0,0 +1,7 @@
+package pl.vabanq.erp.domain.products.accessory.model;
+
+// Wiersz importu masowego akcesoriów, wartości jak w żądaniu. Wiersz z id istniejącego akcesorium
+// aktualizuje je (puste pola bez zmian), bez id albo z nieznanym id - tworzy nowe akcesorium.
+public sealed interface AccessoryDraft permits FilamentAccessoryDraft, PackagingAccessoryDraft, FastenersAccessoryDraft {
+    String id();
+}
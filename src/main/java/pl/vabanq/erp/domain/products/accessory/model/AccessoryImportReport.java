@@ -0,0 +1,11 @@
+package pl.vabanq.erp.domain.products.accessory.model;
+
+import java.util.List;
+
+public record AccessoryImportReport(int created, int updated, int unchanged, int failed, List<RowResult> rows) {
+
+    // Wynik pojedynczego wiersza: id akcesorium i operacja (CREATE/UPDATE/UNCHANGED) albo opis błędu.
+    // Wiersze numerowane osobno w obrębie każdego typu, od 1.
+    public record RowResult(AccessoryType type, int row, String id, String operation, String error) {
+    }
+}
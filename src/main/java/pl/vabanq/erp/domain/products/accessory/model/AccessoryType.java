@@ -0,0 +1,7 @@
+package pl.vabanq.erp.domain.products.accessory.model;
+
+public enum AccessoryType {
+    FILAMENT,
+    PACKAGING,
+    FASTENERS
+}
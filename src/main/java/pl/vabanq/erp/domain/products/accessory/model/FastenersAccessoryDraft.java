@@ -0,0 +1,9 @@
+package pl.vabanq.erp.domain.products.accessory.model;
+
+public record FastenersAccessoryDraft(
+        String id,
+        String name,
+        String netPricePerQuantity,
+        String quantity
+) implements AccessoryDraft {
+}
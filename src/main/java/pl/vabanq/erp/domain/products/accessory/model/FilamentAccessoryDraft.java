@@ -0,0 +1,15 @@
+package pl.vabanq.erp.domain.products.accessory.model;
+
+public record FilamentAccessoryDraft(
+        String id,
+        String name,
+        String producer,
+        String filamentType,
+        String printTemperature,
+        String deskTemperature,
+        String pricePerKg,
+        String color,
+        String description,
+        String quantity
+) implements AccessoryDraft {
+}
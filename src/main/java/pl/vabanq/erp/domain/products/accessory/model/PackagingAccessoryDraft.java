@@ -0,0 +1,11 @@
+package pl.vabanq.erp.domain.products.accessory.model;
+
+public record PackagingAccessoryDraft(
+        String id,
+        String name,
+        String packagingSize,
+        String dimensions,
+        String netPricePerQuantity,
+        String quantity
+) implements AccessoryDraft {
+}
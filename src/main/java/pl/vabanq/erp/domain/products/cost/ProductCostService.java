@@ -0,0 +1,307 @@
+package pl.vabanq.erp.domain.products.cost;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.vabanq.erp.domain.Identifiable;
+import pl.vabanq.erp.domain.change.ChangeTrackingService;
+import pl.vabanq.erp.domain.change.ChangeType;
+import pl.vabanq.erp.domain.error.DomainException;
+import pl.vabanq.erp.domain.error.ErrorCode;
+import pl.vabanq.erp.domain.products.accessory.model.AccessoryType;
+import pl.vabanq.erp.domain.products.accessory.model.FastenersAccessory;
+import pl.vabanq.erp.domain.products.accessory.model.FilamentAccessory;
+import pl.vabanq.erp.domain.products.accessory.model.PackagingAccessory;
+import pl.vabanq.erp.domain.products.cost.model.MarginReport;
+import pl.vabanq.erp.domain.products.cost.model.PriceSimulation;
+import pl.vabanq.erp.domain.products.cost.model.ProductCost;
+import pl.vabanq.erp.domain.products.cost.model.ProductMargin;
+import pl.vabanq.erp.domain.products.cost.model.SimulatedProductCost;
+import pl.vabanq.erp.domain.products.product.ProductRepository;
+import pl.vabanq.erp.domain.products.product.ProductService;
+import pl.vabanq.erp.domain.products.product.model.AccessoryQuantity;
+import pl.vabanq.erp.domain.products.product.model.PrintTime;
+import pl.vabanq.erp.domain.products.product.model.Product;
+import pl.vabanq.erp.domain.utility.ValidationUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Zmaterializowane koszty produktów: filament (cena za kg × gramy), opakowania i łączniki (cena netto × ilość)
+// oraz czas maszyny. Zmiana akcesorium przelicza tylko produkty, które go używają (indeks użyć z ProductService),
+// zmiana produktu - tylko ten produkt. Pełne przeliczenie jest jedynie przy starcie.
+public class ProductCostService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductCostService.class);
+    private static final int REBUILD_CHUNK_SIZE = 500;
+    private static final BigDecimal GRAMS_PER_KG = BigDecimal.valueOf(1000);
+    private static final BigDecimal MINUTES_PER_HOUR = BigDecimal.valueOf(60);
+    public static final int MAX_MARGIN_REPORT_LIMIT = 1000;
+    private final Map<String, CostInputs> inputsByProduct = new ConcurrentHashMap<>();
+    private final Map<String, UnitCost> unitCostsByAccessory = new ConcurrentHashMap<>();
+    private final Map<String, ProductCost> costsByProduct = new ConcurrentHashMap<>();
+    private final Map<String, MarginEntry> marginsByProduct = new ConcurrentHashMap<>();
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final BigDecimal machineHourRate;
+
+    public ProductCostService(ProductRepository productRepository, ProductService productService,
+                              ChangeTrackingService changeTrackingService, BigDecimal machineHourRate) {
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.machineHourRate = machineHourRate;
+        changeTrackingService.addListener(this::onChange);
+    }
+
+    // Produkt spoza zmaterializowanego widoku (np. zapisany z pominięciem aplikacji) jest liczony przy odczycie
+    public ProductCost getProductCost(String productId) {
+        ProductCost cost = costsByProduct.get(productId);
+        if (cost != null) {
+            return cost;
+        }
+        Product product = productRepository.getProduct(productId);
+        synchronized (this) {
+            return index(product, false);
+        }
+    }
+
+    public synchronized void rebuild() {
+        LOGGER.info("Rebuilding product costs");
+        inputsByProduct.clear();
+        unitCostsByAccessory.clear();
+        costsByProduct.clear();
+        marginsByProduct.clear();
+        productRepository.streamProducts(REBUILD_CHUNK_SIZE, chunk -> chunk.forEach(product -> index(product, true)));
+        LOGGER.info("Product costs rebuilt for {} products", costsByProduct.size());
+    }
+
+    private synchronized void onChange(ChangeType type, Collection<? extends Identifiable> changed) {
+        Set<String> affectedProductIds = new HashSet<>();
+        for (Identifiable identifiable : changed) {
+            if (identifiable instanceof Product product) {
+                if (type == ChangeType.DELETE) {
+                    inputsByProduct.remove(product.id());
+                    costsByProduct.remove(product.id());
+                    marginsByProduct.remove(product.id());
+                } else {
+                    index(product, true);
+                }
+                continue;
+            }
+            UnitCost unitCost = unitCost(identifiable);
+            if (unitCost == null || type == ChangeType.DELETE) {
+                continue;
+            }
+            // Zmiana pól bez wpływu na cenę (np. stanu magazynowego) niczego nie przelicza
+            if (!unitCost.equals(unitCostsByAccessory.put(identifiable.id(), unitCost))) {
+                affectedProductIds.addAll(productService.getProductIdsUsingAccessory(identifiable.id()));
+            }
+        }
+        for (String productId : affectedProductIds) {
+            CostInputs inputs = inputsByProduct.get(productId);
+            if (inputs != null) {
+                store(productId, inputs);
+            }
+        }
+        if (!affectedProductIds.isEmpty()) {
+            LOGGER.debug("Recalculated costs of {} products", affectedProductIds.size());
+        }
+    }
+
+    // fresh = akcesoria produktu są aktualne (zdarzenie zapisu, przebudowa); odczyt z cache nie nadpisuje cen
+    private ProductCost index(Product product, boolean fresh) {
+        Map<String, Double> quantities = new HashMap<>();
+        for (AccessoryQuantity accessoryQ : product.accessoriesQ()) {
+            String accessoryId = accessoryQ.accessory().id();
+            quantities.merge(accessoryId, accessoryQ.quantity(), Double::sum);
+            UnitCost unitCost = unitCost(accessoryQ.accessory());
+            if (unitCost != null) {
+                if (fresh) {
+                    unitCostsByAccessory.put(accessoryId, unitCost);
+                } else {
+                    unitCostsByAccessory.putIfAbsent(accessoryId, unitCost);
+                }
+            }
+        }
+        CostInputs inputs = new CostInputs(Map.copyOf(quantities), product.printTime(), product.name(),
+                toGrosze(product.price()), toGrosze(product.allegroTax()));
+        inputsByProduct.put(product.id(), inputs);
+        return store(product.id(), inputs);
+    }
+
+    private ProductCost store(String productId, CostInputs inputs) {
+        ProductCost cost = calculate(productId, inputs, unitCostsByAccessory);
+        costsByProduct.put(productId, cost);
+        marginsByProduct.put(productId, new MarginEntry(productId, inputs.name(), inputs.price(),
+                inputs.allegroTax(), toGrosze(cost.total())));
+        return cost;
+    }
+
+    private ProductCost calculate(String productId, CostInputs inputs, Map<String, UnitCost> unitCosts) {
+        Map<AccessoryType, BigDecimal> materials = new EnumMap<>(AccessoryType.class);
+        inputs.quantitiesByAccessory().forEach((accessoryId, quantity) -> {
+            UnitCost unitCost = unitCosts.get(accessoryId);
+            if (unitCost != null) {
+                materials.merge(unitCost.type(), unitCost.costOf(quantity), BigDecimal::add);
+            }
+        });
+        BigDecimal filament = round(materials.getOrDefault(AccessoryType.FILAMENT, BigDecimal.ZERO));
+        BigDecimal packaging = round(materials.getOrDefault(AccessoryType.PACKAGING, BigDecimal.ZERO));
+        BigDecimal fasteners = round(materials.getOrDefault(AccessoryType.FASTENERS, BigDecimal.ZERO));
+        BigDecimal machine = round(machineHourRate
+                .multiply(BigDecimal.valueOf(inputs.printTime().hours() * 60L + inputs.printTime().minutes()))
+                .divide(MINUTES_PER_HOUR, 10, RoundingMode.HALF_UP));
+        return new ProductCost(productId, filament, packaging, fasteners, machine,
+                filament.add(packaging).add(fasteners).add(machine));
+    }
+
+    // Raport marż całego katalogu. Kwoty w groszach na long, filtrowanie i wybór top-N równolegle na wspólnej puli
+    // fork-join; BigDecimal powstaje tylko dla zwracanych wierszy.
+    // order: asc albo desc, po marży
+    public MarginReport getMarginReport(String minMargin, String maxMargin, String accessoryId, String order,
+                                        int limit) {
+        Validator.validateLimit(limit);
+        boolean descending = Validator.isDescending(order);
+        long min = minMargin == null ? Long.MIN_VALUE : Validator.parseGrosze("minMargin", minMargin);
+        long max = maxMargin == null ? Long.MAX_VALUE : Validator.parseGrosze("maxMargin", maxMargin);
+        Collection<MarginEntry> entries = accessoryId == null
+                ? marginsByProduct.values()
+                : productService.getProductIdsUsingAccessory(accessoryId).stream()
+                        .map(marginsByProduct::get)
+                        .filter(Objects::nonNull)
+                        .toList();
+
+        Comparator<MarginEntry> byMargin = Comparator.comparingLong(MarginEntry::margin)
+                .thenComparing(MarginEntry::productId);
+        if (descending) {
+            byMargin = byMargin.reversed();
+        }
+        List<MarginEntry> matching = entries.parallelStream()
+                .filter(entry -> entry.margin() >= min && entry.margin() <= max)
+                .toList();
+        List<ProductMargin> top = matching.parallelStream()
+                .sorted(byMargin)
+                .limit(limit)
+                .map(MarginEntry::toProductMargin)
+                .toList();
+        return new MarginReport(matching.size(), top);
+    }
+
+    // Symulacja zmiany cen (filament - cena za kg, pozostałe - cena netto za sztukę) bez zapisu czegokolwiek.
+    // Liczona na kopii cen i niezmiennych danych produktów, poza blokadą widoku - nie wstrzymuje bieżących zmian.
+    public PriceSimulation simulatePriceChange(Map<String, String> newPrices) {
+        if (newPrices == null || newPrices.isEmpty()) {
+            throw new DomainException(ErrorCode.INVALID_VALUE, "prices", String.valueOf(newPrices));
+        }
+        newPrices.forEach(ValidationUtils::validatePrice);
+
+        Map<String, UnitCost> currentPrices = Map.copyOf(unitCostsByAccessory);
+        Map<String, UnitCost> simulatedPrices = new HashMap<>(currentPrices);
+        Set<String> affectedProductIds = new HashSet<>();
+        newPrices.forEach((accessoryId, price) -> {
+            UnitCost current = currentPrices.get(accessoryId);
+            // Akcesorium nieużywane w żadnym produkcie nie zmienia żadnego kosztu
+            if (current != null) {
+                simulatedPrices.put(accessoryId, new UnitCost(current.type(), new BigDecimal(price)));
+                affectedProductIds.addAll(productService.getProductIdsUsingAccessory(accessoryId));
+            }
+        });
+
+        List<SimulatedProductCost> products = affectedProductIds.parallelStream()
+                .map(productId -> simulate(productId, currentPrices, simulatedPrices))
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(SimulatedProductCost::marginDelta)
+                        .thenComparing(SimulatedProductCost::productId))
+                .toList();
+        LOGGER.info("Simulated price change of {} accessories affecting {} products", newPrices.size(),
+                products.size());
+        return new PriceSimulation(products.size(), products);
+    }
+
+    private SimulatedProductCost simulate(String productId, Map<String, UnitCost> currentPrices,
+                                          Map<String, UnitCost> simulatedPrices) {
+        CostInputs inputs = inputsByProduct.get(productId);
+        if (inputs == null) {
+            return null;
+        }
+        BigDecimal currentCost = calculate(productId, inputs, currentPrices).total();
+        BigDecimal simulatedCost = calculate(productId, inputs, simulatedPrices).total();
+        BigDecimal revenue = BigDecimal.valueOf(inputs.price() - inputs.allegroTax(), 2);
+        return new SimulatedProductCost(productId, inputs.name(), currentCost, simulatedCost,
+                simulatedCost.subtract(currentCost), revenue.subtract(currentCost), revenue.subtract(simulatedCost),
+                currentCost.subtract(simulatedCost));
+    }
+
+    private static UnitCost unitCost(Identifiable accessory) {
+        return switch (accessory) {
+            case FilamentAccessory filament -> new UnitCost(AccessoryType.FILAMENT, filament.pricePerKg());
+            case PackagingAccessory packaging ->
+                    new UnitCost(AccessoryType.PACKAGING, packaging.netPricePerQuantity());
+            case FastenersAccessory fasteners ->
+                    new UnitCost(AccessoryType.FASTENERS, fasteners.netPricePerQuantity());
+            default -> null;
+        };
+    }
+
+    private static BigDecimal round(BigDecimal value) {
+        return value.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static long toGrosze(BigDecimal value) {
+        return value.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+
+    // Ilości akcesoriów produktu po id - bez samych akcesoriów, ceny są w unitCostsByAccessory.
+    // Cena i prowizja w groszach.
+    private record CostInputs(Map<String, Double> quantitiesByAccessory, PrintTime printTime, String name,
+                              long price, long allegroTax) {
+    }
+
+    // Wiersz raportu marż - kwoty w groszach, żeby przejście po całym katalogu nie tworzyło obiektów BigDecimal
+    private record MarginEntry(String productId, String name, long price, long allegroTax, long cost) {
+        long margin() {
+            return price - allegroTax - cost;
+        }
+
+        ProductMargin toProductMargin() {
+            BigDecimal marginPercent = price == 0
+                    ? BigDecimal.ZERO.setScale(2)
+                    : BigDecimal.valueOf(margin() * 100).divide(BigDecimal.valueOf(price), 2, RoundingMode.HALF_UP);
+            return new ProductMargin(productId, name, BigDecimal.valueOf(price, 2), BigDecimal.valueOf(allegroTax, 2),
+                    BigDecimal.valueOf(cost, 2), BigDecimal.valueOf(margin(), 2), marginPercent);
+        }
+    }
+
+    // Filament wyceniany za kilogram, ilość w gramach; pozostałe akcesoria za sztukę
+    private record UnitCost(AccessoryType type, BigDecimal price) {
+        BigDecimal costOf(double quantity) {
+            BigDecimal cost = price.multiply(BigDecimal.valueOf(quantity));
+            return type == AccessoryType.FILAMENT ? cost.divide(GRAMS_PER_KG, 10, RoundingMode.HALF_UP) : cost;
+        }
+    }
+
+    private static class Validator {
+
+        static void validateLimit(int limit) {
+            if (limit <= 0 || limit > MAX_MARGIN_REPORT_LIMIT) {
+                throw new DomainException(ErrorCode.INVALID_VALUE, "limit", String.valueOf(limit));
+            }
+        }
+
+        static boolean isDescending(String order) {
+            if (!"asc".equals(order) && !"desc".equals(order)) {
+                throw new DomainException(ErrorCode.INVALID_VALUE, "order", String.valueOf(order));
+            }
+            return order.equals("desc");
+        }
+
+        static long parseGrosze(String field, String value) {
+            try {
+                return toGrosze(new BigDecimal(value));
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new DomainException(ErrorCode.INVALID_VALUE, field, value);
+            }
+        }
+    }
+}
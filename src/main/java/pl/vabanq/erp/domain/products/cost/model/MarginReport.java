@@ -0,0 +1,7 @@
+package pl.vabanq.erp.domain.products.cost.model;
+
+import java.util.List;
+
+// matched - liczba produktów spełniających filtry, products - najwyżej limit z nich, posortowanych po marży
+public record MarginReport(int matched, List<ProductMargin> products) {
+}
@@ -0,0 +1,7 @@
+package pl.vabanq.erp.domain.products.cost.model;
+
+import java.util.List;
+
+// Produkty, których koszt zmieniłby się po zmianie cen - od największego spadku marży
+public record PriceSimulation(int affected, List<SimulatedProductCost> products) {
+}
@@ -0,0 +1,8 @@
+package pl.vabanq.erp.domain.products.cost.model;
+
+import java.math.BigDecimal;
+
+// Koszt wytworzenia produktu w rozbiciu na składniki, kwoty zaokrąglone do groszy
+public record ProductCost(String productId, BigDecimal filament, BigDecimal packaging, BigDecimal fasteners,
+                          BigDecimal machine, BigDecimal total) {
+}
@@ -0,0 +1,8 @@
+package pl.vabanq.erp.domain.products.cost.model;
+
+import java.math.BigDecimal;
+
+// Marża = cena - prowizja Allegro - koszt wytworzenia; marginPercent liczony od ceny
+public record ProductMargin(String productId, String name, BigDecimal price, BigDecimal allegroTax, BigDecimal cost,
+                            BigDecimal margin, BigDecimal marginPercent) {
+}
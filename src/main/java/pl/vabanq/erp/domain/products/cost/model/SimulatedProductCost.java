@@ -0,0 +1,9 @@
+package pl.vabanq.erp.domain.products.cost.model;
+
+import java.math.BigDecimal;
+
+// Koszt i marża produktu przed i po hipotetycznej zmianie cen akcesoriów
+public record SimulatedProductCost(String productId, String name, BigDecimal currentCost, BigDecimal simulatedCost,
+                                   BigDecimal costDelta, BigDecimal currentMargin, BigDecimal simulatedMargin,
+                                   BigDecimal marginDelta) {
+}
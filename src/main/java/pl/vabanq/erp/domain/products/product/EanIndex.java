@@ -0,0 +1,106 @@
+package pl.vabanq.erp.domain.products.product;
+
+import pl.vabanq.erp.domain.Identifiable;
+import pl.vabanq.erp.domain.change.ChangeType;
+import pl.vabanq.erp.domain.error.DomainException;
+import pl.vabanq.erp.domain.error.ErrorCode;
+import pl.vabanq.erp.domain.products.product.model.Product;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Indeks EAN -> id produktu w pamięci, rozgrzewany przy starcie i aktualizowany przy każdej zapisanej zmianie.
+// Źródłem prawdy jest unikalny indeks na EAN w bazie - pytamy go o pojedynczy klucz tylko wtedy, gdy wpis w pamięci
+// może być nieaktualny (zmiana z pominięciem aplikacji), nigdy nie skanując tabeli.
+class EanIndex {
+    private final Map<String, String> productIdsByEan = new ConcurrentHashMap<>();
+    private final Map<String, String> eansByProductId = new ConcurrentHashMap<>();
+    // EAN-y zapisywanych właśnie produktów - jeszcze nie w bazie, ale już niedostępne dla innych
+    private final Map<String, String> pending = new HashMap<>();
+    private final ProductRepository productRepository;
+
+    EanIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    // Indeks zakłada unikalność EAN-ów w bazie - przy duplikatach start ma się zatrzymać, a nie działać bez ograniczenia
+    void warmUp() {
+        List<String> duplicatedEans = productRepository.getDuplicatedEans();
+        if (!duplicatedEans.isEmpty()) {
+            throw new IllegalStateException("Products share EANs " + duplicatedEans
+                    + " - unique index idx_product_ean cannot be created; remove the duplicates and restart");
+        }
+        productIdsByEan.clear();
+        eansByProductId.clear();
+        productRepository.getProductIdsByEan().forEach(this::put);
+    }
+
+    Optional<String> findProductId(String ean) {
+        return Optional.ofNullable(productIdsByEan.get(ean));
+    }
+
+    // Rezerwacja EAN-u przed zapisem produktu; po zapisie (udanym lub nie) trzeba wywołać release
+    void reserve(String ean, String productId) {
+        String staleOwner = null;
+        while (true) {
+            String owner = productIdsByEan.get(ean);
+            if (owner != null && !owner.equals(productId) && !owner.equals(staleOwner)) {
+                // Zapytanie do bazy poza blokadą - nie wstrzymuje rezerwacji pozostałych EAN-ów
+                Optional<String> storedOwner = productRepository.findProductIdByEan(ean);
+                if (storedOwner.isPresent() && !storedOwner.get().equals(productId)) {
+                    throw new DomainException(ErrorCode.DUPLICATE_VALUE, "ean", ean);
+                }
+                // Produkt usunięty albo zmieniony z pominięciem aplikacji
+                staleOwner = owner;
+            }
+            synchronized (pending) {
+                String pendingOwner = pending.get(ean);
+                if (pendingOwner != null && !pendingOwner.equals(productId)) {
+                    throw new DomainException(ErrorCode.DUPLICATE_VALUE, "ean", ean);
+                }
+                // Właściciel zmienił się w trakcie sprawdzania w bazie - sprawdzamy jeszcze raz
+                String current = productIdsByEan.get(ean);
+                if (current == null || current.equals(productId) || current.equals(staleOwner)) {
+                    if (staleOwner != null) {
+                        productIdsByEan.remove(ean, staleOwner);
+                    }
+                    pending.put(ean, productId);
+                    return;
+                }
+            }
+        }
+    }
+
+    void release(String ean, String productId) {
+        synchronized (pending) {
+            pending.remove(ean, productId);
+        }
+    }
+
+    void onChange(ChangeType type, Collection<? extends Identifiable> changed) {
+        for (Identifiable identifiable : changed) {
+            if (!(identifiable instanceof Product product)) {
+                continue;
+            }
+            if (type == ChangeType.DELETE) {
+                String ean = eansByProductId.remove(product.id());
+                if (ean != null) {
+                    productIdsByEan.remove(ean, product.id());
+                }
+            } else {
+                put(product.id(), product.ean());
+            }
+        }
+    }
+
+    private void put(String productId, String ean) {
+        if (ean == null) {
+            return;
+        }
+        String previousEan = eansByProductId.put(productId, ean);
+        if (previousEan != null && !previousEan.equals(ean)) {
+            productIdsByEan.remove(previousEan, productId);
+        }
+        productIdsByEan.put(ean, productId);
+    }
+}
@@ -0,0 +1,128 @@
+package pl.vabanq.erp.domain.products.product;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.vabanq.erp.domain.error.DomainException;
+import pl.vabanq.erp.domain.error.ErrorCode;
+import pl.vabanq.erp.domain.products.product.model.ProductFile;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+// Miniatury podglądu (dłuższy bok 64/256/1024 px) generowane w tle po wgraniu podglądu.
+// Zapisywane obok oryginału, więc ten sam podgląd użyty w wielu produktach renderowany jest raz.
+public class PreviewRenditionService implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PreviewRenditionService.class);
+    public static final List<Integer> SIZES = List.of(1024, 256, 64);
+    private static final String RENDITION_FORMAT = "jpg";
+    public static final String RENDITION_CONTENT_TYPE = "image/jpeg";
+    private final ProductFileRepository productFileRepository;
+    private final Executor executor;
+    // Dekodowanie dużych zdjęć zajmuje dużo pamięci - wątków wirtualnych może być dowolnie wiele, renderów nie
+    private final Semaphore renderPermits;
+
+    public PreviewRenditionService(ProductFileRepository productFileRepository, Executor executor,
+                                   int maxConcurrentRenders) {
+        this.productFileRepository = productFileRepository;
+        this.executor = executor;
+        this.renderPermits = new Semaphore(maxConcurrentRenders);
+    }
+
+    public void scheduleRenditions(ProductFile preview) {
+        executor.execute(() -> render(preview));
+    }
+
+    public boolean isRenditionReady(ProductFile preview, int size) {
+        validateSize(size);
+        return productFileRepository.hasRendition(preview.hash(), size);
+    }
+
+    public ReadableByteChannel openRendition(ProductFile preview, int size) {
+        validateSize(size);
+        return productFileRepository.openRendition(preview.hash(), size);
+    }
+
+    // Zamknięcie kontekstu czeka na dokończenie rozpoczętych miniatur
+    @Override
+    public void close() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.close();
+        }
+    }
+
+    private void render(ProductFile preview) {
+        try {
+            renderPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            BufferedImage image = read(preview);
+            if (image == null) {
+                LOGGER.warn("Preview {} is not a readable image, skipping renditions", preview.id());
+                return;
+            }
+            // Od największej do najmniejszej - każda miniatura skalowana z poprzedniej, a nie z pełnego zdjęcia
+            for (int size : SIZES) {
+                image = scale(image, size);
+                if (!productFileRepository.hasRendition(preview.hash(), size)) {
+                    productFileRepository.saveRendition(preview.hash(), size, encode(image));
+                }
+            }
+            LOGGER.info("Created preview renditions for file: {}", preview.id());
+        } catch (Exception e) {
+            LOGGER.error("Error creating preview renditions for file: {}", preview.id(), e);
+        } finally {
+            renderPermits.release();
+        }
+    }
+
+    private BufferedImage read(ProductFile preview) throws IOException {
+        try (InputStream content = Channels.newInputStream(productFileRepository.openContent(preview.hash()))) {
+            return ImageIO.read(content);
+        }
+    }
+
+    // Bez powiększania; przezroczystość spłaszczana na białe tło, bo JPEG nie ma kanału alfa
+    private static BufferedImage scale(BufferedImage source, int size) {
+        double ratio = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private static InputStream encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, RENDITION_FORMAT, output);
+        return new ByteArrayInputStream(output.toByteArray());
+    }
+
+    private static void validateSize(int size) {
+        if (!SIZES.contains(size)) {
+            throw new DomainException(ErrorCode.INVALID_VALUE, "size", String.valueOf(size));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package pl.vabanq.erp.domain.products.product;
+
+import pl.vabanq.erp.domain.products.product.model.StoredContent;
+
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+
+// Magazyn treści adresowany skrótem SHA-256 - identyczne pliki zapisywane są raz i współdzielone
+public interface ProductFileRepository {
+    StoredContent saveContent(InputStream content, String contentType);
+
+    ReadableByteChannel openContent(String hash);
+
+    void releaseContent(String hash);
+
+    void saveRendition(String hash, int size, InputStream content);
+
+    boolean hasRendition(String hash, int size);
+
+    ReadableByteChannel openRendition(String hash, int size);
+}
@@ -1,8 +1,15 @@
 package pl.vabanq.erp.domain.products.product;
 
 import pl.vabanq.erp.domain.products.product.model.Product;
+import pl.vabanq.erp.domain.products.product.model.ProductFile;
+import pl.vabanq.erp.domain.products.product.model.ProductSummary;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface ProductRepository {
     void saveProduct(Product product);
@@ -10,4 +17,42 @@ public interface ProductRepository {
     Product getProduct(String id);
 
     List<Product> getAllProducts();
+
+    // Same id, po id - bez wczytywania produktów
+    List<String> getAllProductIds();
+
+    List<Product> getProducts(String afterId, int limit);
+
+    // Projekcje bez akcesoriów i plików, po id jak getProducts
+    List<ProductSummary> getAllProductSummaries();
+
+    List<ProductSummary> getProductSummaries(String afterId, int limit);
+
+    // Produkty o podanych id; nieistniejące są pomijane
+    List<Product> getProducts(Collection<String> ids);
+
+    // Wyszukanie po unikalnym indeksie EAN w bazie
+    Optional<String> findProductIdByEan(String ean);
+
+    // EAN -> id dla wszystkich produktów z EAN-em, bez wczytywania całych produktów
+    Map<String, String> getProductIdsByEan();
+
+    // EAN-y przypisane do więcej niż jednego produktu - przy działającym unikalnym indeksie zawsze pusta
+    List<String> getDuplicatedEans();
+
+    // id produktu -> id używanych akcesoriów, czytane z samej tabeli powiązań
+    Map<String, Set<String>> getAccessoryIdsByProduct();
+
+    // Wszystkie produkty po id, czytane kursorem i przekazywane porcjami po chunkSize - w pamięci jest jedna porcja
+    void streamProducts(int chunkSize, Consumer<List<Product>> chunkConsumer);
+
+    // Zapis wielu nowych produktów w jednej transakcji, wsadowo
+    void saveProducts(List<Product> products);
+
+    // Zapisuje tylko pola, które różnią się między oldProduct a updatedProduct
+    void patchProduct(Product oldProduct, Product updatedProduct);
+
+    void addFile(String productId, ProductFile file);
+
+    boolean removeFile(String productId, String fileId);
 }
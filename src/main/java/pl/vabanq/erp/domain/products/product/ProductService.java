@@ -3,6 +3,7 @@ package pl.vabanq.erp.domain.products.product;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.util.Pair;
+import pl.vabanq.erp.domain.Identifiable;
 import pl.vabanq.erp.domain.change.ChangeTrackingService;
 import pl.vabanq.erp.domain.error.DomainException;
 import pl.vabanq.erp.domain.error.ErrorCode;
@@ -10,25 +11,90 @@ import pl.vabanq.erp.domain.products.accessory.AccessoryRepository;
 import pl.vabanq.erp.domain.products.product.model.AccessoryQuantity;
 import pl.vabanq.erp.domain.products.product.model.PrintTime;
 import pl.vabanq.erp.domain.products.product.model.Product;
+import pl.vabanq.erp.domain.products.product.model.ProductDraft;
 import pl.vabanq.erp.domain.products.product.model.ProductFile;
+import pl.vabanq.erp.domain.products.product.model.ProductImportReport;
+import pl.vabanq.erp.domain.products.product.model.ProductSummary;
+import pl.vabanq.erp.domain.products.product.model.StoredContent;
+import pl.vabanq.erp.domain.utility.FileUtils;
 import pl.vabanq.erp.domain.utility.UUIDGenerator;
 import pl.vabanq.erp.domain.utility.ValidationUtils;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 public class ProductService {
     private static final Logger LOGGER = LoggerFactory.getLogger(ProductService.class);
     private static final List<String> VALID_PREVIEW_FORMATS = List.of(".jpg", ".jpeg", ".png");
+    public static final int MAX_PAGE_SIZE = 500;
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+    private static final int EXPORT_CHUNK_SIZE = 500;
     private final ProductRepository productRepository;
+    private final ProductFileRepository productFileRepository;
     private final AccessoryRepository accessoryRepository;
     private final ChangeTrackingService changeTrackingService;
+    private final PreviewRenditionService previewRenditionService;
+    private final EanIndex eanIndex;
+    private final WhereUsedIndex whereUsedIndex;
 
-    public ProductService(ProductRepository productRepository, AccessoryRepository accessoryRepository, ChangeTrackingService changeTrackingService) {
+    public ProductService(ProductRepository productRepository, ProductFileRepository productFileRepository,
+                          AccessoryRepository accessoryRepository, ChangeTrackingService changeTrackingService,
+                          PreviewRenditionService previewRenditionService) {
         this.productRepository = productRepository;
+        this.productFileRepository = productFileRepository;
         this.accessoryRepository = accessoryRepository;
         this.changeTrackingService = changeTrackingService;
+        this.previewRenditionService = previewRenditionService;
+        this.eanIndex = new EanIndex(productRepository);
+        this.whereUsedIndex = new WhereUsedIndex(productRepository);
+        changeTrackingService.addListener(eanIndex::onChange);
+        changeTrackingService.addListener(whereUsedIndex::onChange);
+    }
+
+    // Wczytanie indeksów przy starcie aplikacji - po jednym zapytaniu o pary (ean, id) i (produkt, akcesorium)
+    public void warmUpIndexes() {
+        eanIndex.warmUp();
+        whereUsedIndex.warmUp();
+        LOGGER.info("Product indexes warmed up");
+    }
+
+    // Produkty używające akcesorium, z odwrotnego indeksu - bez przeglądania akcesoriów wszystkich produktów
+    public List<Product> getProductsUsingAccessory(String accessoryId) {
+        accessoryRepository.getAccessory(accessoryId);
+        List<String> productIds = getProductIdsUsingAccessory(accessoryId).stream().sorted().toList();
+        return productRepository.getProducts(productIds);
+    }
+
+    public Set<String> getProductIdsUsingAccessory(String accessoryId) {
+        return whereUsedIndex.findProductIds(accessoryId);
+    }
+
+    // Tylko indeks w pamięci, bez sięgania do bazy
+    public Optional<String> findIndexedProductId(String ean) {
+        return eanIndex.findProductId(ean);
+    }
+
+    // Wyszukanie w indeksie w pamięci; baza pytana tylko o EAN-y, których indeks nie zna
+    public Product getProductByEan(String ean) {
+        if (!Validator.isEanValid(ean)) {
+            throw new DomainException(ErrorCode.INVALID_VALUE, "ean", ean);
+        }
+        String productId = eanIndex.findProductId(ean)
+                .or(() -> productRepository.findProductIdByEan(ean))
+                .orElseThrow(() -> new DomainException(ErrorCode.NOT_FOUND, ean));
+        return productRepository.getProduct(productId);
     }
 
     public Product saveProduct(String name, String ean, List<Pair<Double, String>> accessoriesQ, Integer printHours,
@@ -54,8 +120,13 @@ public class ProductService {
                     description
             );
 
-            productRepository.saveProduct(product);
-            changeTrackingService.logCreate(product);
+            eanIndex.reserve(ean, product.id());
+            try {
+                productRepository.saveProduct(product);
+                changeTrackingService.logCreate(product);
+            } finally {
+                eanIndex.release(ean, product.id());
+            }
             LOGGER.info("Successfully saved Product: {}", product);
             return product;
 
@@ -65,12 +136,124 @@ public class ProductService {
         }
     }
 
+    // Import strumieniowy: wiersze przetwarzane porcjami po IMPORT_CHUNK_SIZE - jedno wyszukanie akcesoriów
+    // i jedna transakcja z wsadowymi INSERT-ami na porcję. Błędny wiersz nie przerywa importu.
+    // Iterator może rzucić DomainException z next() dla wiersza, którego nie da się odczytać.
+    public ProductImportReport importProducts(Iterator<ProductDraft> drafts) {
+        LOGGER.info("Attempting to import Products");
+        List<ProductImportReport.RowResult> results = new ArrayList<>();
+        List<Pair<Integer, ProductDraft>> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        int row = 0;
+        while (drafts.hasNext()) {
+            row++;
+            try {
+                chunk.add(Pair.of(row, drafts.next()));
+            } catch (DomainException e) {
+                results.add(new ProductImportReport.RowResult(row, null, e.getMessage()));
+            }
+            if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                importChunk(chunk, results);
+                chunk.clear();
+            }
+        }
+        importChunk(chunk, results);
+
+        results.sort(Comparator.comparingInt(ProductImportReport.RowResult::row));
+        int imported = (int) results.stream().filter(result -> result.error() == null).count();
+        LOGGER.info("Imported {} Products, {} rows failed", imported, results.size() - imported);
+        return new ProductImportReport(imported, results.size() - imported, results);
+    }
+
+    private void importChunk(List<Pair<Integer, ProductDraft>> chunk, List<ProductImportReport.RowResult> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Map<String, Identifiable> accessories = accessoryRepository.getAccessories(chunk.stream()
+                .map(Pair::getSecond)
+                .filter(draft -> draft.accessoriesQ() != null)
+                .flatMap(draft -> draft.accessoriesQ().stream())
+                .filter(Objects::nonNull)
+                .map(Pair::getSecond)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+
+        List<Product> products = new ArrayList<>();
+        List<Integer> productRows = new ArrayList<>();
+        try {
+            saveChunk(chunk, accessories, products, productRows, results);
+        } finally {
+            products.forEach(product -> eanIndex.release(product.ean(), product.id()));
+        }
+    }
+
+    private void saveChunk(List<Pair<Integer, ProductDraft>> chunk, Map<String, Identifiable> accessories,
+                           List<Product> products, List<Integer> productRows,
+                           List<ProductImportReport.RowResult> results) {
+        for (Pair<Integer, ProductDraft> indexedDraft : chunk) {
+            ProductDraft draft = indexedDraft.getSecond();
+            try {
+                Validator.validateProduct(draft.name(), draft.ean(), draft.accessoriesQ(), draft.printHours(),
+                        draft.printMinutes(), draft.price(), draft.allegroTax(), draft.description());
+                Product product = new Product(
+                        UUIDGenerator.generateUUID(),
+                        draft.name(),
+                        draft.ean(),
+                        map(draft.accessoriesQ(), accessories),
+                        new PrintTime(draft.printHours(), draft.printMinutes()),
+                        null,
+                        List.of(),
+                        new BigDecimal(draft.price()),
+                        new BigDecimal(draft.allegroTax()),
+                        draft.description()
+                );
+                // EAN zajęty w bazie albo przez wcześniejszy wiersz importu odrzuca tylko ten wiersz
+                eanIndex.reserve(product.ean(), product.id());
+                products.add(product);
+                productRows.add(indexedDraft.getFirst());
+            } catch (DomainException e) {
+                results.add(new ProductImportReport.RowResult(indexedDraft.getFirst(), null, e.getMessage()));
+            } catch (RuntimeException e) {
+                // Nieprzewidziany błąd jednego wiersza nie przerywa porcji ani całego importu
+                LOGGER.error("Error importing Product from row {}", indexedDraft.getFirst(), e);
+                results.add(new ProductImportReport.RowResult(indexedDraft.getFirst(), null,
+                        ErrorCode.INTERNAL_ERROR.getMessage()));
+            }
+        }
+
+        try {
+            productRepository.saveProducts(products);
+        } catch (RuntimeException e) {
+            LOGGER.error("Error importing chunk of {} Products", products.size(), e);
+            productRows.forEach(row -> results.add(new ProductImportReport.RowResult(row, null,
+                    ErrorCode.INTERNAL_ERROR.getMessage())));
+            return;
+        }
+        changeTrackingService.logCreates(products);
+        for (int i = 0; i < products.size(); i++) {
+            results.add(new ProductImportReport.RowResult(productRows.get(i), products.get(i).id(), null));
+        }
+    }
+
     private List<AccessoryQuantity> map(List<Pair<Double, String>> accessoriesQ) {
+        return map(accessoriesQ, accessoryRepository.getAccessories(
+                accessoriesQ.stream().map(Pair::getSecond).toList()));
+    }
+
+    private static List<AccessoryQuantity> map(List<Pair<Double, String>> accessoriesQ,
+                                               Map<String, Identifiable> accessories) {
         return accessoriesQ.stream()
-                .map(pair -> new AccessoryQuantity(accessoryRepository.getAccessory(pair.getSecond()), pair.getFirst()))
+                .map(pair -> new AccessoryQuantity(findAccessory(accessories, pair.getSecond()), pair.getFirst()))
                 .toList();
     }
 
+    private static Identifiable findAccessory(Map<String, Identifiable> accessories, String id) {
+        Identifiable accessory = accessories.get(id);
+        if (accessory == null) {
+            throw new DomainException(ErrorCode.NOT_FOUND, id);
+        }
+        return accessory;
+    }
+
     public Product updateProduct(String id, String name, String ean, List<Pair<Double, String>> accessoriesQ, Integer printHours,
                                  Integer printMinutes, String price, String allegroTax, String description) {
         try {
@@ -108,8 +291,13 @@ public class ProductService {
                     updatedDescription
             );
 
-            productRepository.saveProduct(updatedProduct);
-            changeTrackingService.logUpdate(oldProduct, updatedProduct);
+            eanIndex.reserve(updatedEan, id);
+            try {
+                productRepository.patchProduct(oldProduct, updatedProduct);  // zapis tylko zmienionych kolumn
+                changeTrackingService.logUpdate(oldProduct, updatedProduct);
+            } finally {
+                eanIndex.release(updatedEan, id);
+            }
             LOGGER.info("Successfully updated Product: {}", updatedProduct);
             return updatedProduct;
         } catch (Exception e) {
@@ -118,15 +306,61 @@ public class ProductService {
         }
     }
 
+    // Częściowa aktualizacja: pola null pozostają bez zmian, podane pola muszą być poprawne
+    public Product patchProduct(String id, String name, String ean, List<Pair<Double, String>> accessoriesQ,
+                                Integer printHours, Integer printMinutes, String price, String allegroTax,
+                                String description) {
+        try {
+            LOGGER.info("Attempting to patch Product with id: {}", id);
+            Product oldProduct = productRepository.getProduct(id);
+
+            PrintTime printTime = oldProduct.printTime();
+            if (printHours != null || printMinutes != null) {
+                printTime = Validator.validatePrintTime(
+                        printHours != null ? printHours : printTime.hours(),
+                        printMinutes != null ? printMinutes : printTime.minutes());
+            }
+            Validator.validatePatch(name, ean, accessoriesQ, price, allegroTax, description);
+
+            Product updatedProduct = new Product(
+                    id,
+                    name != null ? name : oldProduct.name(),
+                    ean != null ? ean : oldProduct.ean(),
+                    accessoriesQ != null ? map(accessoriesQ) : oldProduct.accessoriesQ(),
+                    printTime,
+                    oldProduct.preview(),
+                    oldProduct.files(),
+                    price != null ? new BigDecimal(price) : oldProduct.price(),
+                    allegroTax != null ? new BigDecimal(allegroTax) : oldProduct.allegroTax(),
+                    description != null ? description : oldProduct.description()
+            );
+
+            eanIndex.reserve(updatedProduct.ean(), id);
+            try {
+                productRepository.patchProduct(oldProduct, updatedProduct);
+                changeTrackingService.logUpdate(oldProduct, updatedProduct);
+            } finally {
+                eanIndex.release(updatedProduct.ean(), id);
+            }
+            LOGGER.info("Successfully patched Product: {}", updatedProduct);
+            return updatedProduct;
+        } catch (Exception e) {
+            LOGGER.error("Error patching Product with id: {}", id, e);
+            throw e;
+        }
+    }
+
     // Metoda updatePreview z dodaną walidacją
-    public Product updatePreview(String id, byte[] previewData, String filename) {
+    public Product updatePreview(String id, InputStream previewData, String filename) {
+        ProductFile updatedPreview = null;
+        boolean saved = false;
         try {
             LOGGER.info("Attempting to update preview for Product with id: {}", id);
             Product oldProduct = productRepository.getProduct(id);
 
             Validator.validatePreviewFile(previewData, filename);  // Walidacja pliku podglądu
 
-            ProductFile updatedPreview = new ProductFile(UUIDGenerator.generateUUID(), previewData, filename);
+            updatedPreview = storeFile(previewData, filename);
 
             Product updatedProduct = new Product(
                     id,
@@ -141,18 +375,29 @@ public class ProductService {
                     oldProduct.description()
             );
 
-            productRepository.saveProduct(updatedProduct);
+            productRepository.patchProduct(oldProduct, updatedProduct);
+            saved = true;
+            if (oldProduct.preview() != null) {
+                productFileRepository.releaseContent(oldProduct.preview().hash());
+            }
+            // Miniatury powstają w tle - odpowiedź wraca zaraz po zapisaniu oryginału
+            previewRenditionService.scheduleRenditions(updatedPreview);
             changeTrackingService.logUpdate(oldProduct, updatedProduct);
             LOGGER.info("Successfully updated preview for Product: {}", updatedProduct);
             return updatedProduct;
         } catch (Exception e) {
+            if (updatedPreview != null && !saved) {
+                releaseUnsavedContent(updatedPreview, e);
+            }
             LOGGER.error("Error updating preview for Product with id: {}", id, e);
             throw e;
         }
     }
 
     // Metoda addFile z dodaną walidacją
-    public Product addFile(String id, byte[] fileData, String filename) {
+    public Product addFile(String id, InputStream fileData, String filename) {
+        ProductFile newFile = null;
+        boolean saved = false;
         try {
             LOGGER.info("Attempting to add file to Product with id: {}", id);
             Product oldProduct = productRepository.getProduct(id);
@@ -160,7 +405,7 @@ public class ProductService {
             Validator.validateFile(fileData, filename);  // Walidacja dodawanego pliku
 
             List<ProductFile> updatedFiles = new ArrayList<>(oldProduct.files());
-            ProductFile newFile = new ProductFile(UUIDGenerator.generateUUID(), fileData, filename);
+            newFile = storeFile(fileData, filename);
             updatedFiles.add(newFile);
 
             Product updatedProduct = new Product(
@@ -176,11 +421,15 @@ public class ProductService {
                     oldProduct.description()
             );
 
-            productRepository.saveProduct(updatedProduct);
+            productRepository.addFile(id, newFile);  // zapis tylko nowego pliku, bez przepisywania całego produktu
+            saved = true;
             changeTrackingService.logUpdate(oldProduct, updatedProduct);
             LOGGER.info("Successfully added file to Product: {}", updatedProduct);
             return updatedProduct;
         } catch (Exception e) {
+            if (newFile != null && !saved) {
+                releaseUnsavedContent(newFile, e);
+            }
             LOGGER.error("Error adding file to Product with id: {}", id, e);
             throw e;
         }
@@ -208,7 +457,12 @@ public class ProductService {
                     oldProduct.description()
             );
 
-            productRepository.saveProduct(updatedProduct);
+            if (productRepository.removeFile(productId, fileId)) {
+                oldProduct.files().stream()
+                        .filter(file -> file.id().equals(fileId))
+                        .findFirst()
+                        .ifPresent(file -> productFileRepository.releaseContent(file.hash()));
+            }
             changeTrackingService.logUpdate(oldProduct, updatedProduct);
             LOGGER.info("Successfully deleted file from Product: {}", updatedProduct);
             return updatedProduct;
@@ -218,10 +472,106 @@ public class ProductService {
         }
     }
 
+    // Treść pliku czytana tylko na żądanie - produkt przechowuje jedynie opis pliku
+    public ReadableByteChannel openFileContent(ProductFile file) {
+        return productFileRepository.openContent(file.hash());
+    }
+
+    public ProductFile getProductFile(String productId, String fileId) {
+        Product product = productRepository.getProduct(productId);
+        if (product.preview() != null && product.preview().id().equals(fileId)) {
+            return withContent(product.preview());
+        }
+        return product.files().stream()
+                .filter(file -> file.id().equals(fileId))
+                .findFirst()
+                .map(ProductService::withContent)
+                .orElseThrow(() -> new DomainException(ErrorCode.NOT_FOUND, fileId));
+    }
+
+    public ProductFile getPreview(String productId) {
+        ProductFile preview = productRepository.getProduct(productId).preview();
+        if (preview == null) {
+            throw new DomainException(ErrorCode.NOT_FOUND, productId);
+        }
+        return withContent(preview);
+    }
+
+    // Pliki sprzed magazynu treści, których bajtów nie było czego przenieść, mają tylko metadane
+    private static ProductFile withContent(ProductFile file) {
+        if (file.hash() == null) {
+            throw new DomainException(ErrorCode.NOT_FOUND, file.id());
+        }
+        return file;
+    }
+
+    // Miniatury powstają asynchronicznie - dopóki nie są gotowe, serwowany jest oryginał
+    public boolean isPreviewRenditionReady(ProductFile preview, int size) {
+        return previewRenditionService.isRenditionReady(preview, size);
+    }
+
+    public ReadableByteChannel openPreviewRendition(ProductFile preview, int size) {
+        return previewRenditionService.openRendition(preview, size);
+    }
+
+    // Treść trafia do magazynu strumieniowo, produkt dostaje tylko opis pliku wskazujący treść po skrócie
+    private ProductFile storeFile(InputStream data, String filename) {
+        String contentType = FileUtils.contentType(filename);
+        StoredContent stored = productFileRepository.saveContent(data, contentType);
+        if (stored.size() == 0) {
+            productFileRepository.releaseContent(stored.hash());
+            throw Validator.emptyFile();
+        }
+        return new ProductFile(UUIDGenerator.generateUUID(), filename, stored.size(), stored.hash(), contentType);
+    }
+
+    // Treść zapisana, ale produkt nie - bez zwolnienia odwołania blob zostałby w magazynie na zawsze
+    private void releaseUnsavedContent(ProductFile file, Exception cause) {
+        try {
+            productFileRepository.releaseContent(file.hash());
+        } catch (RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
     public List<Product> getAllProducts() {
         return productRepository.getAllProducts();
     }
 
+    public List<String> getAllProductIds() {
+        return productRepository.getAllProductIds();
+    }
+
+    // Produkty o podanych id z cache produktów - z bazy czytane są tylko brakujące
+    public List<Product> getProducts(Collection<String> ids) {
+        return productRepository.getProducts(ids);
+    }
+
+    // Eksport całego katalogu porcjami po EXPORT_CHUNK_SIZE, bez wczytywania wszystkich produktów naraz
+    public void exportProducts(Consumer<List<Product>> chunkConsumer) {
+        LOGGER.info("Exporting all Products");
+        productRepository.streamProducts(EXPORT_CHUNK_SIZE, chunkConsumer);
+    }
+
+    public List<ProductSummary> getAllProductSummaries() {
+        return productRepository.getAllProductSummaries();
+    }
+
+    public List<ProductSummary> getProductSummaries(String afterId, int limit) {
+        if (!Validator.isPageLimitValid(limit)) {
+            throw new DomainException(ErrorCode.INVALID_VALUE, "limit", String.valueOf(limit));
+        }
+        return productRepository.getProductSummaries(afterId, limit);
+    }
+
+    // Stronicowanie po kluczu: kolejna strona zaczyna się za ostatnim id poprzedniej
+    public List<Product> getProducts(String afterId, int limit) {
+        if (!Validator.isPageLimitValid(limit)) {
+            throw new DomainException(ErrorCode.INVALID_VALUE, "limit", String.valueOf(limit));
+        }
+        return productRepository.getProducts(afterId, limit);
+    }
+
     private static class Validator {
 
         static void validateProduct(String name, String ean, List<Pair<Double, String>> accessoriesQ,
@@ -232,7 +582,7 @@ public class ProductService {
                 throw new DomainException(ErrorCode.INVALID_VALUE, "ean", ean);
             }
             if (!isAccessoriesValid(accessoriesQ)) {
-                throw new DomainException(ErrorCode.INVALID_VALUE, "accessoriesQ", accessoriesQ.toString());
+                throw new DomainException(ErrorCode.INVALID_VALUE, "accessoriesQ", String.valueOf(accessoriesQ));
             }
             if (!isPrintTimeValid(printHours, printMinutes)) {
                 throw new DomainException(ErrorCode.INVALID_VALUE, "printTime", printHours + ":" + printMinutes);
@@ -244,7 +594,36 @@ public class ProductService {
             }
         }
 
-        static void validatePreviewFile(byte[] data, String filename) {
+        static void validatePatch(String name, String ean, List<Pair<Double, String>> accessoriesQ, String price,
+                                  String allegroTax, String description) {
+            if (name != null) {
+                ValidationUtils.validateName(name);
+            }
+            if (ean != null && !isEanValid(ean)) {
+                throw new DomainException(ErrorCode.INVALID_VALUE, "ean", ean);
+            }
+            if (accessoriesQ != null && !isAccessoriesValid(accessoriesQ)) {
+                throw new DomainException(ErrorCode.INVALID_VALUE, "accessoriesQ", String.valueOf(accessoriesQ));
+            }
+            if (price != null) {
+                ValidationUtils.validatePrice("price", price);
+            }
+            if (allegroTax != null) {
+                ValidationUtils.validatePrice("allegroTax", allegroTax);
+            }
+            if (description != null && !ValidationUtils.isDescriptionValid(description)) {
+                throw new DomainException(ErrorCode.INVALID_VALUE, "description", description);
+            }
+        }
+
+        static PrintTime validatePrintTime(int hours, int minutes) {
+            if (!isPrintTimeValid(hours, minutes)) {
+                throw new DomainException(ErrorCode.INVALID_VALUE, "printTime", hours + ":" + minutes);
+            }
+            return new PrintTime(hours, minutes);
+        }
+
+        static void validatePreviewFile(InputStream data, String filename) {
             validateFile(data, filename);
             String fileExtension = getFileExtension(filename).toLowerCase();
             if (!VALID_PREVIEW_FORMATS.contains(fileExtension)) {
@@ -252,15 +631,19 @@ public class ProductService {
             }
         }
 
-        static void validateFile(byte[] data, String filename) {
-            if (data == null || data.length == 0) {
-                throw new DomainException(ErrorCode.INVALID_VALUE, "file", "File data cannot be null or empty.");
+        static void validateFile(InputStream data, String filename) {
+            if (data == null) {
+                throw emptyFile();
             }
             if (filename == null || filename.trim().isEmpty()) {
                 throw new DomainException(ErrorCode.INVALID_VALUE, "filename", "Filename cannot be null or empty.");
             }
         }
 
+        static DomainException emptyFile() {
+            return new DomainException(ErrorCode.INVALID_VALUE, "file", "File data cannot be null or empty.");
+        }
+
         private static String getFileExtension(String filename) {
             int dotIndex = filename.lastIndexOf(".");
             if (dotIndex >= 0 && dotIndex < filename.length() - 1) {
@@ -278,7 +661,9 @@ public class ProductService {
                 return false;
             }
             for (Pair<Double, String> pair : accessoriesQ) {
-                if (pair.getFirst() <= 0 || pair.getSecond().trim().isEmpty()) {
+                // Wiersze importu mogą nie mieć ilości albo id akcesorium
+                if (pair == null || pair.getFirst() == null || pair.getSecond() == null
+                        || pair.getFirst() <= 0 || pair.getSecond().trim().isEmpty()) {
                     return false;
                 }
             }
@@ -289,6 +674,10 @@ public class ProductService {
             return hours != null && minutes != null && hours >= 0 && minutes >= 0 && minutes < 60;
         }
 
+        static boolean isPageLimitValid(int limit) {
+            return limit > 0 && limit <= MAX_PAGE_SIZE;
+        }
+
         static boolean isFileValid(byte[] data, String filename) {
             return data != null && data.length > 0 && filename != null && !filename.trim().isEmpty();
         }
@@ -0,0 +1,69 @@
+package pl.vabanq.erp.domain.products.product;
+
+import pl.vabanq.erp.domain.Identifiable;
+import pl.vabanq.erp.domain.change.ChangeType;
+import pl.vabanq.erp.domain.products.product.model.AccessoryQuantity;
+import pl.vabanq.erp.domain.products.product.model.Product;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Odwrotny indeks akcesorium -> produkty, które go używają. Rozgrzewany przy starcie parami (produkt, akcesorium)
+// i aktualizowany przy każdej zapisanej zmianie produktu - pytanie o użycia akcesorium nie przegląda produktów.
+class WhereUsedIndex {
+    private final Map<String, Set<String>> productIdsByAccessory = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> accessoryIdsByProduct = new ConcurrentHashMap<>();
+    private final ProductRepository productRepository;
+
+    WhereUsedIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    synchronized void warmUp() {
+        productIdsByAccessory.clear();
+        accessoryIdsByProduct.clear();
+        productRepository.getAccessoryIdsByProduct().forEach(this::put);
+    }
+
+    Set<String> findProductIds(String accessoryId) {
+        Set<String> productIds = productIdsByAccessory.get(accessoryId);
+        return productIds == null ? Set.of() : Set.copyOf(productIds);
+    }
+
+    synchronized void onChange(ChangeType type, Collection<? extends Identifiable> changed) {
+        for (Identifiable identifiable : changed) {
+            if (!(identifiable instanceof Product product)) {
+                continue;
+            }
+            if (type == ChangeType.DELETE) {
+                put(product.id(), Set.of());
+            } else {
+                put(product.id(), product.accessoriesQ().stream()
+                        .map(AccessoryQuantity::accessory)
+                        .map(Identifiable::id)
+                        .collect(Collectors.toSet()));
+            }
+        }
+    }
+
+    // Zastępuje akcesoria produktu - poprawiane są tylko listy akcesoriów, które doszły lub odpadły
+    private void put(String productId, Set<String> accessoryIds) {
+        Set<String> previous = accessoryIds.isEmpty()
+                ? accessoryIdsByProduct.remove(productId)
+                : accessoryIdsByProduct.put(productId, accessoryIds);
+        if (previous != null) {
+            for (String accessoryId : previous) {
+                if (!accessoryIds.contains(accessoryId)) {
+                    productIdsByAccessory.computeIfPresent(accessoryId, (id, productIds) -> {
+                        productIds.remove(productId);
+                        return productIds.isEmpty() ? null : productIds;
+                    });
+                }
+            }
+        }
+        for (String accessoryId : accessoryIds) {
+            productIdsByAccessory.computeIfAbsent(accessoryId, id -> ConcurrentHashMap.newKeySet()).add(productId);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package pl.vabanq.erp.domain.products.product.model;
+
+import org.springframework.data.util.Pair;
+
+import java.util.List;
+
+// Nieprzetworzone dane nowego produktu (np. wiersz importu) - walidowane dopiero w ProductService
+public record ProductDraft(String name, String ean, List<Pair<Double, String>> accessoriesQ, Integer printHours,
+                           Integer printMinutes, String price, String allegroTax, String description) {
+}
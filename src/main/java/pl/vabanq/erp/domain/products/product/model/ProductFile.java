@@ -1,4 +1,5 @@
 package pl.vabanq.erp.domain.products.product.model;
 
-public record ProductFile(String id, byte[] data, String filename) {
+// Opis pliku produktu - sama treść pliku jest przechowywana osobno (ProductFileRepository)
+public record ProductFile(String id, String filename, long size, String hash, String contentType) {
 }
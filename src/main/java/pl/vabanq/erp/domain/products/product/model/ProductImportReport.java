@@ -0,0 +1,10 @@
+package pl.vabanq.erp.domain.products.product.model;
+
+import java.util.List;
+
+public record ProductImportReport(int imported, int failed, List<RowResult> rows) {
+
+    // Wynik pojedynczego wiersza: id utworzonego produktu albo opis błędu
+    public record RowResult(int row, String id, String error) {
+    }
+}
@@ -0,0 +1,8 @@
+package pl.vabanq.erp.domain.products.product.model;
+
+import java.math.BigDecimal;
+
+// Same kolumny tabeli products - bez akcesoriów i plików
+public record ProductSummary(String id, String name, String ean, PrintTime printTime, BigDecimal price,
+                             BigDecimal allegroTax, String description) {
+}
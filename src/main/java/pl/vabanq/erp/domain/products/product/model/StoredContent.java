@@ -0,0 +1,5 @@
+package pl.vabanq.erp.domain.products.product.model;
+
+// Wynik zapisu treści pliku - rozmiar i SHA-256 liczone w trakcie strumieniowania
+public record StoredContent(long size, String hash) {
+}
@@ -0,0 +1,223 @@
+package pl.vabanq.erp.domain.search;
+
+import pl.vabanq.erp.domain.search.model.SearchHit;
+import pl.vabanq.erp.domain.search.model.SearchResultType;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Indeks odwrócony w pamięci: term -> id dokumentów. Słownik termów jest posortowany (zapytania prefiksowe),
+// a każdy term zapisany jest też pod wariantami z jedną usuniętą literą - literówki (odległość edycyjna ≤ 1)
+// wyszukiwane są przez kilka odczytów z mapy zamiast przeglądania całego słownika.
+class InvertedIndex {
+    static final int EXACT_SCORE = 3;
+    static final int PREFIX_SCORE = 2;
+    static final int FUZZY_SCORE = 1;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MIN_FUZZY_LENGTH = 3;
+    // Krótki prefiks może pasować do tysięcy termów - rozwijany jest tylko do tylu najbliższych
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<String, Document> documents = new HashMap<>();
+    private final NavigableMap<String, Set<String>> postings = new TreeMap<>();
+    private final Map<String, Set<String>> deletions = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private record Document(String id, SearchResultType type, String name, Set<String> terms) {
+    }
+
+    // Ponowne zindeksowanie dokumentu o tym samym id zastępuje poprzednią wersję
+    void index(String id, SearchResultType type, String name, String... fields) {
+        Set<String> terms = new HashSet<>();
+        for (String field : fields) {
+            terms.addAll(tokenize(field));
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            documents.put(id, new Document(id, type, name, terms));
+            for (String term : terms) {
+                postings.computeIfAbsent(term, key -> {
+                    deletionVariants(key).forEach(variant ->
+                            deletions.computeIfAbsent(variant, ignored -> new HashSet<>()).add(key));
+                    return new HashSet<>();
+                }).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            postings.clear();
+            deletions.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Każde słowo zapytania musi pasować (dokładnie, prefiksem albo z jedną literówką) do jakiegoś termu dokumentu;
+    // wynik dokumentu to suma najlepszych dopasowań poszczególnych słów
+    List<SearchHit> search(String query, int limit) {
+        List<String> tokens = tokenize(query).stream().distinct().toList();
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<String, Integer> scores = null;
+            for (String token : tokens) {
+                Map<String, Integer> tokenScores = match(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return scores.entrySet().stream()
+                    .map(entry -> {
+                        Document document = documents.get(entry.getKey());
+                        return new SearchHit(document.id(), document.type(), document.name(), entry.getValue());
+                    })
+                    .sorted(Comparator.comparingInt(SearchHit::score).reversed()
+                            .thenComparing(SearchHit::name, Comparator.nullsLast(Comparator.naturalOrder()))
+                            .thenComparing(SearchHit::id))
+                    .limit(limit)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<String, Integer> match(String token) {
+        Map<String, Integer> scores = new HashMap<>();
+        addPostings(scores, postings.get(token), EXACT_SCORE);
+        if (token.length() >= MIN_PREFIX_LENGTH) {
+            postings.subMap(token, false, token + Character.MAX_VALUE, false).values().stream()
+                    .limit(MAX_PREFIX_EXPANSIONS)
+                    .forEach(ids -> addPostings(scores, ids, PREFIX_SCORE));
+        }
+        if (token.length() >= MIN_FUZZY_LENGTH) {
+            for (String term : fuzzyTerms(token)) {
+                addPostings(scores, postings.get(term), FUZZY_SCORE);
+            }
+        }
+        return scores;
+    }
+
+    private static void addPostings(Map<String, Integer> scores, Set<String> ids, int score) {
+        if (ids == null) {
+            return;
+        }
+        for (String id : ids) {
+            scores.merge(id, score, Math::max);
+        }
+    }
+
+    // Kandydaci: termy dłuższe o literę (token jest ich wariantem), krótsze o literę (term jest wariantem tokenu)
+    // i tej samej długości (wspólny wariant). Wspólny wariant daje też przestawienia liter, stąd końcowe sprawdzenie.
+    private Set<String> fuzzyTerms(String token) {
+        Set<String> candidates = new HashSet<>(deletions.getOrDefault(token, Set.of()));
+        for (String variant : deletionVariants(token)) {
+            if (postings.containsKey(variant)) {
+                candidates.add(variant);
+            }
+            candidates.addAll(deletions.getOrDefault(variant, Set.of()));
+        }
+        candidates.remove(token);
+        candidates.removeIf(candidate -> !isWithinOneEdit(token, candidate));
+        return candidates;
+    }
+
+    private void removeDocument(String id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms()) {
+            Set<String> ids = postings.get(term);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(term);
+                for (String variant : deletionVariants(term)) {
+                    Set<String> terms = deletions.get(variant);
+                    terms.remove(term);
+                    if (terms.isEmpty()) {
+                        deletions.remove(variant);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Set<String> deletionVariants(String term) {
+        Set<String> variants = new HashSet<>();
+        if (term.length() < MIN_FUZZY_LENGTH) {
+            return variants;
+        }
+        for (int i = 0; i < term.length(); i++) {
+            variants.add(term.substring(0, i) + term.substring(i + 1));
+        }
+        return variants;
+    }
+
+    private static boolean isWithinOneEdit(String first, String second) {
+        if (Math.abs(first.length() - second.length()) > 1) {
+            return false;
+        }
+        String shorter = first.length() <= second.length() ? first : second;
+        String longer = shorter == first ? second : first;
+        int i = 0;
+        while (i < shorter.length() && shorter.charAt(i) == longer.charAt(i)) {
+            i++;
+        }
+        if (shorter.length() == longer.length()) {
+            return shorter.substring(i + Math.min(1, shorter.length() - i))
+                    .equals(longer.substring(i + Math.min(1, longer.length() - i)));
+        }
+        return shorter.substring(i).equals(longer.substring(i + 1));
+    }
+
+    // Małe litery bez znaków diakrytycznych ("Łódź" -> "lodz"), podział na wszystkim, co nie jest literą ani cyfrą
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD))
+                .replaceAll("")
+                .replace('ł', 'l');
+        return Arrays.stream(SEPARATORS.split(normalized))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+}
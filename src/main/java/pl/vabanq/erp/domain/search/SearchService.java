@@ -0,0 +1,80 @@
+package pl.vabanq.erp.domain.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.vabanq.erp.domain.Identifiable;
+import pl.vabanq.erp.domain.change.ChangeTrackingService;
+import pl.vabanq.erp.domain.change.ChangeType;
+import pl.vabanq.erp.domain.error.DomainException;
+import pl.vabanq.erp.domain.error.ErrorCode;
+import pl.vabanq.erp.domain.products.accessory.AccessoryRepository;
+import pl.vabanq.erp.domain.products.accessory.model.FastenersAccessory;
+import pl.vabanq.erp.domain.products.accessory.model.FilamentAccessory;
+import pl.vabanq.erp.domain.products.accessory.model.PackagingAccessory;
+import pl.vabanq.erp.domain.products.product.ProductRepository;
+import pl.vabanq.erp.domain.products.product.model.Product;
+import pl.vabanq.erp.domain.search.model.SearchHit;
+import pl.vabanq.erp.domain.search.model.SearchResultType;
+
+import java.util.Collection;
+import java.util.List;
+
+// Wyszukiwanie produktów (nazwa, opis, EAN) i akcesoriów (nazwa, producent, typ). Indeks budowany przy starcie
+// i aktualizowany przy każdej zapisanej zmianie, więc zapytania nie dotykają bazy.
+public class SearchService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchService.class);
+    public static final int MAX_LIMIT = 100;
+    private static final int REBUILD_CHUNK_SIZE = 500;
+    private final InvertedIndex index = new InvertedIndex();
+    private final ProductRepository productRepository;
+    private final AccessoryRepository accessoryRepository;
+
+    public SearchService(ProductRepository productRepository, AccessoryRepository accessoryRepository,
+                         ChangeTrackingService changeTrackingService) {
+        this.productRepository = productRepository;
+        this.accessoryRepository = accessoryRepository;
+        changeTrackingService.addListener(this::onChange);
+    }
+
+    public List<SearchHit> search(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new DomainException(ErrorCode.INVALID_VALUE, "q", query);
+        }
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new DomainException(ErrorCode.INVALID_VALUE, "limit", String.valueOf(limit));
+        }
+        return index.search(query, limit);
+    }
+
+    public void rebuild() {
+        LOGGER.info("Rebuilding search index");
+        index.clear();
+        productRepository.streamProducts(REBUILD_CHUNK_SIZE, chunk -> chunk.forEach(this::index));
+        accessoryRepository.streamAccessories(REBUILD_CHUNK_SIZE, chunk -> chunk.forEach(this::index));
+        LOGGER.info("Search index rebuilt with {} documents", index.size());
+    }
+
+    private void onChange(ChangeType type, Collection<? extends Identifiable> changed) {
+        for (Identifiable identifiable : changed) {
+            if (type == ChangeType.DELETE) {
+                index.remove(identifiable.id());
+            } else {
+                index(identifiable);
+            }
+        }
+    }
+
+    private void index(Identifiable identifiable) {
+        switch (identifiable) {
+            case Product product -> index.index(product.id(), SearchResultType.PRODUCT, product.name(),
+                    product.name(), product.description(), product.ean());
+            case FilamentAccessory filament -> index.index(filament.id(), SearchResultType.FILAMENT, filament.name(),
+                    filament.name(), filament.producer(), filament.filamentType());
+            case PackagingAccessory packaging -> index.index(packaging.id(), SearchResultType.PACKAGING,
+                    packaging.name(), packaging.name(), packaging.packagingSize());
+            case FastenersAccessory fasteners -> index.index(fasteners.id(), SearchResultType.FASTENERS,
+                    fasteners.name(), fasteners.name());
+            default -> LOGGER.warn("Skipping unsupported document in search index: {}", identifiable.id());
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package pl.vabanq.erp.domain.search.model;
+
+// Trafienie wyszukiwania - im wyższy score, tym lepsze dopasowanie (dokładne > prefiks > literówka)
+public record SearchHit(String id, SearchResultType type, String name, int score) {
+}
@@ -0,0 +1,8 @@
+package pl.vabanq.erp.domain.search.model;
+
+public enum SearchResultType {
+    PRODUCT,
+    FILAMENT,
+    PACKAGING,
+    FASTENERS
+}
@@ -0,0 +1,39 @@
+package pl.vabanq.erp.domain.utility;
+
+import pl.vabanq.erp.domain.error.DomainException;
+import pl.vabanq.erp.domain.error.ErrorCode;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Map;
+
+public class FileUtils {
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            ".jpg", "image/jpeg",
+            ".jpeg", "image/jpeg",
+            ".png", "image/png",
+            ".pdf", "application/pdf",
+            ".stl", "model/stl",
+            ".3mf", "model/3mf",
+            ".obj", "model/obj",
+            ".gcode", "text/x-gcode"
+    );
+
+    public static String contentType(String filename) {
+        int dotIndex = filename.lastIndexOf('.');
+        if (dotIndex < 0) {
+            return DEFAULT_CONTENT_TYPE;
+        }
+        return CONTENT_TYPES.getOrDefault(filename.substring(dotIndex).toLowerCase(Locale.ROOT), DEFAULT_CONTENT_TYPE);
+    }
+
+    public static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new DomainException(ErrorCode.INTERNAL_ERROR);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package pl.vabanq.erp.domain.version;
+
+import pl.vabanq.erp.domain.Identifiable;
+import pl.vabanq.erp.domain.change.ChangeTrackingService;
+import pl.vabanq.erp.domain.change.ChangeType;
+import pl.vabanq.erp.domain.products.accessory.model.FastenersAccessory;
+import pl.vabanq.erp.domain.products.accessory.model.FilamentAccessory;
+import pl.vabanq.erp.domain.products.accessory.model.PackagingAccessory;
+import pl.vabanq.erp.domain.products.product.ProductService;
+import pl.vabanq.erp.domain.products.product.model.Product;
+import pl.vabanq.erp.domain.version.model.ResourceCollection;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Wersje encji i kolekcji w pamięci, podbijane tylko przez zapisane zmiany (ChangeTrackingService), więc
+// sprawdzenie wersji nie dotyka bazy. Prefiks epoki odróżnia wersje z poprzedniego uruchomienia aplikacji.
+// Produkt zawiera dane swoich akcesoriów, dlatego zmiana akcesorium podbija też produkty, które go używają.
+public class ResourceVersionService {
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Long> versionsById = new ConcurrentHashMap<>();
+    private final Map<ResourceCollection, Long> versionsByCollection = new EnumMap<>(ResourceCollection.class);
+    private final ProductService productService;
+
+    public ResourceVersionService(ProductService productService, ChangeTrackingService changeTrackingService) {
+        this.productService = productService;
+        changeTrackingService.addListener(this::onChange);
+    }
+
+    public String getVersion(String id) {
+        return epoch + "-" + versionsById.getOrDefault(id, 0L);
+    }
+
+    public synchronized String getVersion(ResourceCollection collection) {
+        return epoch + "-" + versionsByCollection.getOrDefault(collection, 0L);
+    }
+
+    private synchronized void onChange(ChangeType type, Collection<? extends Identifiable> changed) {
+        long version = sequence.incrementAndGet();
+        Set<String> productIds = new HashSet<>();
+        for (Identifiable identifiable : changed) {
+            versionsById.put(identifiable.id(), version);
+            ResourceCollection collection = collectionOf(identifiable);
+            if (collection == null) {
+                continue;
+            }
+            versionsByCollection.put(collection, version);
+            if (collection != ResourceCollection.PRODUCTS) {
+                productIds.addAll(productService.getProductIdsUsingAccessory(identifiable.id()));
+            }
+        }
+        if (!productIds.isEmpty()) {
+            productIds.forEach(productId -> versionsById.put(productId, version));
+            versionsByCollection.put(ResourceCollection.PRODUCTS, version);
+        }
+    }
+
+    private static ResourceCollection collectionOf(Identifiable identifiable) {
+        return switch (identifiable) {
+            case Product product -> ResourceCollection.PRODUCTS;
+            case FilamentAccessory filament -> ResourceCollection.FILAMENTS;
+            case PackagingAccessory packaging -> ResourceCollection.PACKAGING;
+            case FastenersAccessory fasteners -> ResourceCollection.FASTENERS;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,8 @@
+package pl.vabanq.erp.domain.version.model;
+
+public enum ResourceCollection {
+    PRODUCTS,
+    FILAMENTS,
+    PACKAGING,
+    FASTENERS
+}
@@ -0,0 +1,196 @@
+package pl.vabanq.erp.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import pl.vabanq.erp.domain.Identifiable;
+import pl.vabanq.erp.domain.change.ChangeTrackingService;
+import pl.vabanq.erp.domain.change.ChangeType;
+import pl.vabanq.erp.domain.products.product.ProductRepository;
+import pl.vabanq.erp.domain.products.product.model.Product;
+import pl.vabanq.erp.domain.products.product.model.ProductFile;
+import pl.vabanq.erp.domain.products.product.model.ProductSummary;
+import pl.vabanq.erp.infrastructure.database.product.ProductRepositoryJPA;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Cache złożonych produktów (z rozwiązanymi akcesoriami) przed bazą. Ograniczony szacowaną wagą wpisów,
+// wypieranie W-TinyLFU. Zapis produktu unieważnia jego wpis, zmiana akcesorium - produkty, które go używają.
+@Primary
+@Repository
+public class ProductRepositoryCaffeine implements ProductRepository {
+    private static final String CACHE_NAME = "products";
+    private static final int BASE_WEIGHT = 512;
+    private static final int ACCESSORY_WEIGHT = 256;
+    private static final int FILE_WEIGHT = 256;
+    private final ProductRepositoryJPA productRepository;
+    private final Cache<String, Product> cache;
+
+    public ProductRepositoryCaffeine(ProductRepositoryJPA productRepository,
+                                     ChangeTrackingService changeTrackingService,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${products.cache.max-weight:67108864}") long maxWeight,
+                                     @Value("${products.cache.expire-after-write:PT10M}") Duration expireAfterWrite) {
+        this.productRepository = productRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String id, Product product) -> weigh(product))
+                // Zabezpieczenie przed zmianami z pominięciem aplikacji (np. ręcznie w bazie)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        changeTrackingService.addListener(this::onChange);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void saveProduct(Product product) {
+        productRepository.saveProduct(product);
+        cache.invalidate(product.id());
+    }
+
+    @Override
+    public void saveProducts(List<Product> products) {
+        productRepository.saveProducts(products);
+        cache.invalidateAll(products.stream().map(Product::id).toList());
+    }
+
+    @Override
+    public void patchProduct(Product oldProduct, Product updatedProduct) {
+        productRepository.patchProduct(oldProduct, updatedProduct);
+        cache.invalidate(updatedProduct.id());
+    }
+
+    @Override
+    public Product getProduct(String id) {
+        return cache.get(id, productRepository::getProduct);
+    }
+
+    @Override
+    public List<Product> getAllProducts() {
+        return productRepository.getAllProducts();
+    }
+
+    @Override
+    public List<String> getAllProductIds() {
+        return productRepository.getAllProductIds();
+    }
+
+    @Override
+    public List<Product> getProducts(String afterId, int limit) {
+        return productRepository.getProducts(afterId, limit);
+    }
+
+    @Override
+    public List<ProductSummary> getAllProductSummaries() {
+        return productRepository.getAllProductSummaries();
+    }
+
+    @Override
+    public List<ProductSummary> getProductSummaries(String afterId, int limit) {
+        return productRepository.getProductSummaries(afterId, limit);
+    }
+
+    @Override
+    public List<Product> getProducts(Collection<String> ids) {
+        Map<String, Product> products = cache.getAll(ids, missing -> productRepository.getProducts(List.<String>copyOf(missing)).stream()
+                .collect(Collectors.toMap(Product::id, Function.identity())));
+        return ids.stream().map(products::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    public Optional<String> findProductIdByEan(String ean) {
+        return productRepository.findProductIdByEan(ean);
+    }
+
+    @Override
+    public Map<String, String> getProductIdsByEan() {
+        return productRepository.getProductIdsByEan();
+    }
+
+    @Override
+    public List<String> getDuplicatedEans() {
+        return productRepository.getDuplicatedEans();
+    }
+
+    @Override
+    public Map<String, Set<String>> getAccessoryIdsByProduct() {
+        return productRepository.getAccessoryIdsByProduct();
+    }
+
+    // Eksport omija cache - jednorazowe przejście po całym katalogu wyparłoby z niego często czytane produkty
+    @Override
+    public void streamProducts(int chunkSize, Consumer<List<Product>> chunkConsumer) {
+        productRepository.streamProducts(chunkSize, chunkConsumer);
+    }
+
+    @Override
+    public void addFile(String productId, ProductFile file) {
+        productRepository.addFile(productId, file);
+        cache.invalidate(productId);
+    }
+
+    @Override
+    public boolean removeFile(String productId, String fileId) {
+        boolean removed = productRepository.removeFile(productId, fileId);
+        cache.invalidate(productId);
+        return removed;
+    }
+
+    public void cleanUp() {
+        cache.invalidateAll();
+    }
+
+    // Przybliżony rozmiar wpisu w bajtach - wystarczy, żeby duże produkty wypierały proporcjonalnie więcej
+    private static int weigh(Product product) {
+        long weight = BASE_WEIGHT
+                + 2L * (length(product.name()) + length(product.description()))
+                + (long) ACCESSORY_WEIGHT * product.accessoriesQ().size()
+                + (long) FILE_WEIGHT * (product.files().size() + (product.preview() != null ? 1 : 0));
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private void onChange(ChangeType type, Collection<? extends Identifiable> changed) {
+        Set<String> changedAccessories = new HashSet<>();
+        for (Identifiable identifiable : changed) {
+            if (identifiable instanceof Product product) {
+                cache.invalidate(product.id());
+            } else {
+                changedAccessories.add(identifiable.id());
+            }
+        }
+        if (changedAccessories.isEmpty()) {
+            return;
+        }
+        // Zmiany akcesoriów są rzadkie - przejście po wpisach jest tańsze niż utrzymywanie odwrotnego indeksu;
+        // przy imporcie masowym jedno przejście dla wszystkich zmienionych akcesoriów
+        List<String> affected = cache.asMap().values().stream()
+                .filter(product -> product.accessoriesQ().stream()
+                        .anyMatch(accessoryQ -> changedAccessories.contains(accessoryQ.accessory().id())))
+                .map(Product::id)
+                .toList();
+        cache.invalidateAll(affected);
+    }
+}
@@ -1,12 +1,24 @@
 package pl.vabanq.erp.infrastructure.config;
 
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import pl.vabanq.erp.domain.change.ChangeTrackingService;
 import pl.vabanq.erp.domain.products.accessory.AccessoryRepository;
 import pl.vabanq.erp.domain.products.accessory.AccessoryService;
+import pl.vabanq.erp.domain.products.cost.ProductCostService;
+import pl.vabanq.erp.domain.products.product.PreviewRenditionService;
+import pl.vabanq.erp.domain.products.product.ProductFileRepository;
 import pl.vabanq.erp.domain.products.product.ProductRepository;
 import pl.vabanq.erp.domain.products.product.ProductService;
+import pl.vabanq.erp.domain.search.SearchService;
+import pl.vabanq.erp.domain.version.ResourceVersionService;
+import pl.vabanq.erp.infrastructure.database.accessory.AccessoryRepositoryJPA;
+import pl.vabanq.erp.infrastructure.database.product.LegacyFileContentMigration;
+
+import java.math.BigDecimal;
+import java.util.concurrent.Executors;
 
 @Configuration
 public class ApplicationConfiguration {
@@ -21,8 +33,54 @@ public class ApplicationConfiguration {
     }
 
     @Bean
-    ProductService productService(ProductRepository productRepository, AccessoryRepository accessoryRepository,
-                                  ChangeTrackingService changeTrackingService) {
-        return new ProductService(productRepository, accessoryRepository, changeTrackingService);
+    ProductService productService(ProductRepository productRepository, ProductFileRepository productFileRepository,
+                                  AccessoryRepository accessoryRepository, ChangeTrackingService changeTrackingService,
+                                  PreviewRenditionService previewRenditionService) {
+        return new ProductService(productRepository, productFileRepository, accessoryRepository, changeTrackingService,
+                previewRenditionService);
+    }
+
+    // Executor nie jest osobnym beanem, żeby nie wyłączał domyślnego applicationTaskExecutor Springa
+    @Bean
+    PreviewRenditionService previewRenditionService(ProductFileRepository productFileRepository,
+                                                    @Value("${files.renditions.max-concurrent:2}") int maxConcurrentRenders) {
+        return new PreviewRenditionService(productFileRepository, Executors.newVirtualThreadPerTaskExecutor(),
+                maxConcurrentRenders);
+    }
+
+    @Bean
+    SearchService searchService(ProductRepository productRepository, AccessoryRepository accessoryRepository,
+                                ChangeTrackingService changeTrackingService) {
+        return new SearchService(productRepository, accessoryRepository, changeTrackingService);
+    }
+
+    @Bean
+    ProductCostService productCostService(ProductRepository productRepository, ProductService productService,
+                                          ChangeTrackingService changeTrackingService,
+                                          @Value("${products.cost.machine-hour-rate:0}") BigDecimal machineHourRate) {
+        return new ProductCostService(productRepository, productService, changeTrackingService, machineHourRate);
+    }
+
+    // Rozgrzewka po utworzeniu wszystkich beanów, a przed uruchomieniem serwera WWW - pierwsze żądanie trafia już
+    // na gotowe indeksy. Kolejność: treść plików z dawnych kolumn bazy do magazynu, rejestr typów akcesoriów,
+    // potem indeksy czytające akcesoria (EAN i użycia, wyszukiwanie, koszty). Dalej aktualizuje je
+    // ChangeTrackingService.
+    @Bean
+    SmartInitializingSingleton startupWarmUp(LegacyFileContentMigration legacyFileContentMigration,
+                                             AccessoryRepositoryJPA accessoryRepositoryJPA, ProductService productService,
+                                             SearchService searchService, ProductCostService productCostService) {
+        return () -> {
+            legacyFileContentMigration.migrate();
+            accessoryRepositoryJPA.registerMissingTypes();
+            productService.warmUpIndexes();
+            searchService.rebuild();
+            productCostService.rebuild();
+        };
+    }
+
+    @Bean
+    ResourceVersionService resourceVersionService(ProductService productService,
+                                                  ChangeTrackingService changeTrackingService) {
+        return new ResourceVersionService(productService, changeTrackingService);
     }
 }
@@ -1,41 +1,65 @@
 package pl.vabanq.erp.infrastructure.database.accessory;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import pl.vabanq.erp.domain.Identifiable;
 import pl.vabanq.erp.domain.products.accessory.AccessoryRepository;
+import pl.vabanq.erp.domain.products.accessory.model.AccessoryType;
 import pl.vabanq.erp.domain.products.accessory.model.FastenersAccessory;
 import pl.vabanq.erp.domain.products.accessory.model.FilamentAccessory;
 import pl.vabanq.erp.domain.products.accessory.model.PackagingAccessory;
 import pl.vabanq.erp.domain.error.DomainException;
 import pl.vabanq.erp.domain.error.ErrorCode;
+import pl.vabanq.erp.infrastructure.database.accessory.entity.AccessoryTypeJPA;
 import pl.vabanq.erp.infrastructure.database.accessory.entity.FastenersAccessoryJPA;
 import pl.vabanq.erp.infrastructure.database.accessory.entity.FilamentAccessoryJPA;
 import pl.vabanq.erp.infrastructure.database.accessory.entity.PackagingAccessoryJPA;
 import pl.vabanq.erp.infrastructure.database.accessory.spring.AccessoryRepositorySpringJPA;
+import pl.vabanq.erp.infrastructure.database.accessory.spring.AccessoryTypeRepositorySpringJPA;
 import pl.vabanq.erp.infrastructure.database.accessory.spring.FastenersRepositorySpringJPA;
 import pl.vabanq.erp.infrastructure.database.accessory.spring.PackagingRepositorySpringJPA;
 
-import java.util.List;
-import java.util.Optional;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.Collectors;
 
 @Repository
 public class AccessoryRepositoryJPA implements AccessoryRepository {
+    // Co tyle encji kontekst utrwalania jest opróżniany - batch_size ogranicza wielkość paczki, to - zużycie pamięci
+    private static final int FLUSH_SIZE = 500;
     private final AccessoryRepositorySpringJPA accessoryRepository;
     private final PackagingRepositorySpringJPA packagingRepository;
     private final FastenersRepositorySpringJPA fastenersRepository;
+    private final AccessoryTypeRepositorySpringJPA accessoryTypeRepository;
+    private final EntityManager entityManager;
 
     public AccessoryRepositoryJPA(AccessoryRepositorySpringJPA accessoryRepository,
                                   PackagingRepositorySpringJPA packagingRepository,
-                                  FastenersRepositorySpringJPA fastenersRepository) {
+                                  FastenersRepositorySpringJPA fastenersRepository,
+                                  AccessoryTypeRepositorySpringJPA accessoryTypeRepository,
+                                  EntityManager entityManager) {
         this.accessoryRepository = accessoryRepository;
         this.packagingRepository = packagingRepository;
         this.fastenersRepository = fastenersRepository;
+        this.accessoryTypeRepository = accessoryTypeRepository;
+        this.entityManager = entityManager;
     }
 
+    @Transactional
     @Override
     public void saveFilament(FilamentAccessory filamentAccessory) {
         FilamentAccessoryJPA existingEntity = accessoryRepository.findByAccessory_Id(filamentAccessory.id())
-                .orElse(new FilamentAccessoryJPA(filamentAccessory));
+                .orElseGet(() -> {
+                    registerType(filamentAccessory.id(), AccessoryType.FILAMENT);
+                    return new FilamentAccessoryJPA(filamentAccessory);
+                });
 
         existingEntity.setAccessory(filamentAccessory);
 
@@ -56,20 +80,28 @@ public class AccessoryRepositoryJPA implements AccessoryRepository {
                 .toList();
     }
 
+    @Transactional
     @Override
     public void savePackagingAccessory(PackagingAccessory packagingAccessory) {
         PackagingAccessoryJPA existingEntity = packagingRepository.findByAccessory_Id(packagingAccessory.id())
-                .orElse(new PackagingAccessoryJPA(packagingAccessory));
+                .orElseGet(() -> {
+                    registerType(packagingAccessory.id(), AccessoryType.PACKAGING);
+                    return new PackagingAccessoryJPA(packagingAccessory);
+                });
 
         existingEntity.setAccessory(packagingAccessory);
 
         packagingRepository.save(existingEntity);
     }
 
+    @Transactional
     @Override
     public void saveFastenersAccessory(FastenersAccessory fastenersAccessory) {
         FastenersAccessoryJPA existingEntity = fastenersRepository.findByAccessory_Id(fastenersAccessory.id())
-                .orElse(new FastenersAccessoryJPA(fastenersAccessory));
+                .orElseGet(() -> {
+                    registerType(fastenersAccessory.id(), AccessoryType.FASTENERS);
+                    return new FastenersAccessoryJPA(fastenersAccessory);
+                });
 
         existingEntity.setAccessory(fastenersAccessory);
 
@@ -97,23 +129,224 @@ public class AccessoryRepositoryJPA implements AccessoryRepository {
                 .getAccessory();
     }
 
+    // Jeden UPDATE ustawiający tylko zmienione pola osadzonego rekordu, bez wczytywania encji
+    @Transactional
+    @Override
+    public void patchAccessory(Identifiable oldAccessory, Identifiable updatedAccessory) {
+        if (!oldAccessory.getClass().equals(updatedAccessory.getClass())) {
+            throw new DomainException(ErrorCode.INTERNAL_ERROR);
+        }
+        Class<?> entityClass = switch (oldAccessory) {
+            case FilamentAccessory ignored -> FilamentAccessoryJPA.class;
+            case PackagingAccessory ignored -> PackagingAccessoryJPA.class;
+            case FastenersAccessory ignored -> FastenersAccessoryJPA.class;
+            default -> throw new DomainException(ErrorCode.INTERNAL_ERROR);
+        };
+        patch(entityClass, oldAccessory, updatedAccessory);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E> void patch(Class<E> entityClass, Identifiable oldAccessory, Identifiable updatedAccessory) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<E> update = criteriaBuilder.createCriteriaUpdate(entityClass);
+        Path<Object> accessory = update.from(entityClass).get("accessory");
+
+        boolean changed = false;
+        try {
+            for (RecordComponent component : oldAccessory.getClass().getRecordComponents()) {
+                Object oldValue = component.getAccessor().invoke(oldAccessory);
+                Object newValue = component.getAccessor().invoke(updatedAccessory);
+                if (!Objects.equals(oldValue, newValue)) {
+                    update.set((Path<Object>) accessory.get(component.getName()), newValue);
+                    changed = true;
+                }
+            }
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new DomainException(ErrorCode.INTERNAL_ERROR);
+        }
+        if (!changed) {
+            return;
+        }
+
+        update.where(criteriaBuilder.equal(accessory.get("id"), oldAccessory.id()));
+        if (entityManager.createQuery(update).executeUpdate() == 0) {
+            throw new DomainException(ErrorCode.NOT_FOUND, oldAccessory.id());
+        }
+    }
+
+    // Aktualizacje: jedno wyszukanie encji na typ, zmiany wypychane przy flush wsadowymi UPDATE-ami.
+    // Nowe akcesoria: persist bez wcześniejszego wyszukiwania, id z puli sekwencji, wsadowe INSERT-y.
+    @Transactional
+    @Override
+    public void saveAccessories(List<? extends Identifiable> created, List<? extends Identifiable> updated) {
+        Map<AccessoryType, Map<String, Identifiable>> updatedByType = updated.stream()
+                .collect(Collectors.groupingBy(AccessoryRepositoryJPA::typeOf,
+                        Collectors.toMap(Identifiable::id, accessory -> accessory)));
+        updatedByType.forEach(this::overwrite);
+        entityManager.flush();
+        entityManager.clear();
+
+        for (int i = 0; i < created.size(); i++) {
+            Identifiable accessory = created.get(i);
+            entityManager.persist(toEntity(accessory));
+            entityManager.persist(new AccessoryTypeJPA(accessory.id(), typeOf(accessory)));
+            if ((i + 1) % FLUSH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void overwrite(AccessoryType type, Map<String, Identifiable> accessories) {
+        int found = switch (type) {
+            case FILAMENT -> {
+                List<FilamentAccessoryJPA> entities = accessoryRepository.findAllByAccessory_IdIn(accessories.keySet());
+                entities.forEach(entity -> entity.setAccessory(
+                        (FilamentAccessory) accessories.get(entity.getAccessory().id())));
+                yield entities.size();
+            }
+            case PACKAGING -> {
+                List<PackagingAccessoryJPA> entities = packagingRepository.findAllByAccessory_IdIn(accessories.keySet());
+                entities.forEach(entity -> entity.setAccessory(
+                        (PackagingAccessory) accessories.get(entity.getAccessory().id())));
+                yield entities.size();
+            }
+            case FASTENERS -> {
+                List<FastenersAccessoryJPA> entities = fastenersRepository.findAllByAccessory_IdIn(accessories.keySet());
+                entities.forEach(entity -> entity.setAccessory(
+                        (FastenersAccessory) accessories.get(entity.getAccessory().id())));
+                yield entities.size();
+            }
+        };
+        // Akcesorium usunięte w międzyczasie - cała transakcja jest wycofywana
+        if (found != accessories.size()) {
+            throw new DomainException(ErrorCode.NOT_FOUND, type.name());
+        }
+    }
+
+    private static Object toEntity(Identifiable accessory) {
+        return switch (accessory) {
+            case FilamentAccessory filament -> new FilamentAccessoryJPA(filament);
+            case PackagingAccessory packaging -> new PackagingAccessoryJPA(packaging);
+            case FastenersAccessory fasteners -> new FastenersAccessoryJPA(fasteners);
+            default -> throw new DomainException(ErrorCode.INTERNAL_ERROR);
+        };
+    }
+
+    private static AccessoryType typeOf(Identifiable accessory) {
+        return switch (accessory) {
+            case FilamentAccessory ignored -> AccessoryType.FILAMENT;
+            case PackagingAccessory ignored -> AccessoryType.PACKAGING;
+            case FastenersAccessory ignored -> AccessoryType.FASTENERS;
+            default -> throw new DomainException(ErrorCode.INTERNAL_ERROR);
+        };
+    }
+
+    @Transactional(readOnly = true)
     @Override
     public Identifiable getAccessory(String id) {
-        Optional<FilamentAccessoryJPA> filament = accessoryRepository.findByAccessory_Id(id);
-        if (filament.isPresent()) {
-            return filament.get().getAccessory();
+        AccessoryType type = accessoryTypeRepository.findById(id)
+                .map(AccessoryTypeJPA::getType)
+                .orElseGet(() -> findUnregisteredType(id));
+
+        return switch (type) {
+            case FILAMENT -> getFilamentAccessory(id);
+            case PACKAGING -> getPackagingAccessory(id);
+            case FASTENERS -> getFastenersAccessory(id);
+        };
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Map<String, Identifiable> getAccessories(Collection<String> ids) {
+        Map<String, Identifiable> accessories = new HashMap<>();
+        if (ids.isEmpty()) {
+            return accessories;
         }
-        Optional<PackagingAccessoryJPA> packaging = packagingRepository.findByAccessory_Id(id);
-        if (packaging.isPresent()) {
-            return packaging.get().getAccessory();
+
+        Map<AccessoryType, Set<String>> idsByType = accessoryTypeRepository.findAllById(new HashSet<>(ids)).stream()
+                .collect(Collectors.groupingBy(AccessoryTypeJPA::getType,
+                        Collectors.mapping(AccessoryTypeJPA::getAccessoryId, Collectors.toSet())));
+
+        // Jedno zapytanie na typ, i tylko dla typów faktycznie występujących w zestawie
+        idsByType.forEach((type, typeIds) -> findAllByType(type, typeIds)
+                .forEach(accessory -> accessories.put(accessory.id(), accessory)));
+
+        Set<String> unregistered = new HashSet<>(ids);
+        unregistered.removeAll(accessories.keySet());
+        if (!unregistered.isEmpty()) {
+            accessories.putAll(findUnregistered(unregistered));
         }
-        Optional<FastenersAccessoryJPA> fastener = fastenersRepository.findByAccessory_Id(id);
-        if (fastener.isPresent()) {
-            return fastener.get().getAccessory();
+
+        return accessories;
+    }
+
+    private List<? extends Identifiable> findAllByType(AccessoryType type, Set<String> ids) {
+        return switch (type) {
+            case FILAMENT -> accessoryRepository.findAllByAccessory_IdIn(ids).stream()
+                    .map(FilamentAccessoryJPA::getAccessory)
+                    .toList();
+            case PACKAGING -> packagingRepository.findAllByAccessory_IdIn(ids).stream()
+                    .map(PackagingAccessoryJPA::getAccessory)
+                    .toList();
+            case FASTENERS -> fastenersRepository.findAllByAccessory_IdIn(ids).stream()
+                    .map(FastenersAccessoryJPA::getAccessory)
+                    .toList();
+        };
+    }
+
+    private void registerType(String id, AccessoryType type) {
+        accessoryTypeRepository.save(new AccessoryTypeJPA(id, type));
+    }
+
+    // Uzupełnienie rejestru o akcesoria zapisane przed jego wprowadzeniem - raz przy starcie,
+    // żeby ścieżki odczytu niczego nie zapisywały
+    @Transactional
+    public int registerMissingTypes() {
+        Map<AccessoryType, List<String>> unregistered = Map.of(
+                AccessoryType.FILAMENT, accessoryRepository.findUnregisteredIds(),
+                AccessoryType.PACKAGING, packagingRepository.findUnregisteredIds(),
+                AccessoryType.FASTENERS, fastenersRepository.findUnregisteredIds());
+        int registered = 0;
+        for (Map.Entry<AccessoryType, List<String>> entry : unregistered.entrySet()) {
+            for (String id : entry.getValue()) {
+                entityManager.persist(new AccessoryTypeJPA(id, entry.getKey()));
+                if (++registered % FLUSH_SIZE == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+        return registered;
+    }
+
+    // Akcesoria spoza rejestru (zapisane z pominięciem aplikacji po starcie) - szukane po kolei we wszystkich tabelach
+    private AccessoryType findUnregisteredType(String id) {
+        for (AccessoryType type : AccessoryType.values()) {
+            if (!findAllByType(type, Set.of(id)).isEmpty()) {
+                return type;
+            }
         }
         throw new DomainException(ErrorCode.NOT_FOUND, id);
     }
 
+    private Map<String, Identifiable> findUnregistered(Set<String> ids) {
+        Set<String> remaining = new HashSet<>(ids);
+        Map<String, Identifiable> accessories = new HashMap<>();
+        for (AccessoryType type : AccessoryType.values()) {
+            if (remaining.isEmpty()) {
+                break;
+            }
+            for (Identifiable accessory : findAllByType(type, remaining)) {
+                accessories.put(accessory.id(), accessory);
+            }
+            remaining.removeAll(accessories.keySet());
+        }
+        return accessories;
+    }
+
     @Override
     public List<FastenersAccessory> getAllFasteners() {
         return fastenersRepository.findAll().stream()
@@ -121,6 +354,33 @@ public class AccessoryRepositoryJPA implements AccessoryRepository {
                 .toList();
     }
 
+    // Typy po kolei, każdy własnym kursorem; encje odłączane po każdej porcji
+    @Transactional(readOnly = true)
+    @Override
+    public void streamAccessories(int chunkSize, Consumer<List<Identifiable>> chunkConsumer) {
+        List<Identifiable> chunk = new ArrayList<>(chunkSize);
+        Consumer<Identifiable> collector = accessory -> {
+            chunk.add(accessory);
+            if (chunk.size() == chunkSize) {
+                chunkConsumer.accept(List.copyOf(chunk));
+                chunk.clear();
+                entityManager.clear();
+            }
+        };
+        try (Stream<FilamentAccessoryJPA> filaments = accessoryRepository.streamAllByOrderByDatabaseIdAsc()) {
+            filaments.map(FilamentAccessoryJPA::getAccessory).forEach(collector);
+        }
+        try (Stream<PackagingAccessoryJPA> packaging = packagingRepository.streamAllByOrderByDatabaseIdAsc()) {
+            packaging.map(PackagingAccessoryJPA::getAccessory).forEach(collector);
+        }
+        try (Stream<FastenersAccessoryJPA> fasteners = fastenersRepository.streamAllByOrderByDatabaseIdAsc()) {
+            fasteners.map(FastenersAccessoryJPA::getAccessory).forEach(collector);
+        }
+        if (!chunk.isEmpty()) {
+            chunkConsumer.accept(List.copyOf(chunk));
+        }
+    }
+
     public List<FastenersAccessory> getAllFastenersAccessories() {
         return fastenersRepository.findAll().stream()
                 .map(FastenersAccessoryJPA::getAccessory)
@@ -131,5 +391,6 @@ public class AccessoryRepositoryJPA implements AccessoryRepository {
         accessoryRepository.deleteAll();
         packagingRepository.deleteAll();
         fastenersRepository.deleteAll();
+        accessoryTypeRepository.deleteAll();
     }
 }
@@ -0,0 +1,40 @@
+package pl.vabanq.erp.infrastructure.database.accessory.entity;
+
+import jakarta.persistence.*;
+import pl.vabanq.erp.domain.products.accessory.model.AccessoryType;
+
+// Rejestr id -> typ akcesorium, pozwala trafić w odpowiednią tabelę jednym wyszukaniem po kluczu głównym
+@Entity
+@Table(name = "accessory_types")
+public class AccessoryTypeJPA {
+    @Id
+    private String accessoryId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AccessoryType type;
+
+    public AccessoryTypeJPA() {
+    }
+
+    public AccessoryTypeJPA(String accessoryId, AccessoryType type) {
+        this.accessoryId = accessoryId;
+        this.type = type;
+    }
+
+    public String getAccessoryId() {
+        return accessoryId;
+    }
+
+    public void setAccessoryId(String accessoryId) {
+        this.accessoryId = accessoryId;
+    }
+
+    public AccessoryType getType() {
+        return type;
+    }
+
+    public void setType(AccessoryType type) {
+        this.type = type;
+    }
+}
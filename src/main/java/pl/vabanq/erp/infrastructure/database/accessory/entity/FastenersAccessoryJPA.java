@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import pl.vabanq.erp.domain.products.accessory.model.FastenersAccessory;
 
 @Entity
+@Table(indexes = @Index(name = "idx_fasteners_accessory_id", columnList = "id", unique = true))
 public class FastenersAccessoryJPA {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE)
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import pl.vabanq.erp.domain.products.accessory.model.FilamentAccessory;
 
 @Entity
+@Table(indexes = @Index(name = "idx_filament_accessory_id", columnList = "id", unique = true))
 public class FilamentAccessoryJPA {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE)
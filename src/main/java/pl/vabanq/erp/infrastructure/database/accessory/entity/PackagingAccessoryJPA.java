@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import pl.vabanq.erp.domain.products.accessory.model.PackagingAccessory;
 
 @Entity
+@Table(indexes = @Index(name = "idx_packaging_accessory_id", columnList = "id", unique = true))
 public class PackagingAccessoryJPA {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE)
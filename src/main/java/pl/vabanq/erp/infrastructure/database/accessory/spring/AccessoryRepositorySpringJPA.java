@@ -1,10 +1,29 @@
 package pl.vabanq.erp.infrastructure.database.accessory.spring;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import pl.vabanq.erp.infrastructure.database.accessory.entity.FilamentAccessoryJPA;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AccessoryRepositorySpringJPA extends JpaRepository<FilamentAccessoryJPA, Integer> {
     Optional<FilamentAccessoryJPA> findByAccessory_Id(String domainId);
+
+    List<FilamentAccessoryJPA> findAllByAccessory_IdIn(Collection<String> domainIds);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<FilamentAccessoryJPA> streamAllByOrderByDatabaseIdAsc();
+
+    // Akcesoria bez wpisu w rejestrze typów
+    @Query("select a.accessory.id from FilamentAccessoryJPA a where a.accessory.id not in (select t.accessoryId from AccessoryTypeJPA t)")
+    List<String> findUnregisteredIds();
 }
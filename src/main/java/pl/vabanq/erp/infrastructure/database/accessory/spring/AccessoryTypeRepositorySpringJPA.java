@@ -0,0 +1,7 @@
+package pl.vabanq.erp.infrastructure.database.accessory.spring;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import pl.vabanq.erp.infrastructure.database.accessory.entity.AccessoryTypeJPA;
+
+public interface AccessoryTypeRepositorySpringJPA extends JpaRepository<AccessoryTypeJPA, String> {
+}
@@ -0,0 +1,162 @@
+package pl.vabanq.erp.infrastructure.database.product;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.vabanq.erp.domain.products.product.ProductFileRepository;
+import pl.vabanq.erp.domain.products.product.model.StoredContent;
+import pl.vabanq.erp.domain.utility.FileUtils;
+
+import java.io.InputStream;
+import java.sql.Blob;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.Locale;
+
+// Przeniesienie treści plików trzymanych dawniej w bazie (products.file_data, product_files.data,
+// product_file_contents.data) do magazynu adresowanego skrótem. Kolumny nie są już mapowane w encjach,
+// więc czytane są przez JDBC - każdy plik w osobnej transakcji, strumieniowo, bez ładowania całości na stertę.
+// Wiersze bez treści w żadnym ze źródeł zostają bez skrótu - ich metadane są dostępne, a pobranie treści daje 404.
+@Component
+public class LegacyFileContentMigration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LegacyFileContentMigration.class);
+    private static final String CONTENTS_TABLE = "product_file_contents";
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductFileRepository productFileRepository;
+
+    public LegacyFileContentMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                      ProductFileRepository productFileRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.productFileRepository = productFileRepository;
+    }
+
+    public int migrate() {
+        boolean contentsTable = hasTable(CONTENTS_TABLE);
+        int migrated = migratePreviews(hasColumn("products", "file_data"), contentsTable)
+                + migrateFiles(hasColumn("product_files", "data"), contentsTable);
+        if (migrated > 0) {
+            LOGGER.info("Moved {} legacy product files to the content store", migrated);
+        }
+        return migrated;
+    }
+
+    private int migratePreviews(boolean inlineColumn, boolean contentsTable) {
+        if (!inlineColumn && !contentsTable) {
+            return 0;
+        }
+        String source = inlineColumn ? "p.file_data" : "null";
+        String join = contentsTable ? " left join " + CONTENTS_TABLE + " c on c.file_id = p.file_id" : "";
+        String select = "select " + source + ", " + (contentsTable ? "c.data" : "null") + " from products p" + join
+                + " where p.id = ?";
+        String update = "update products set file_size = ?, file_hash = ?, content_type = ?"
+                + (inlineColumn ? ", file_data = null" : "") + " where id = ?";
+        List<LegacyFile> pending = jdbcTemplate.query(
+                "select id, file_id, file_name from products where file_id is not null and file_hash is null",
+                (rs, rowNum) -> new LegacyFile(rs.getString(1), rs.getString(2), rs.getString(3)));
+        return migrate(pending, select, update, contentsTable);
+    }
+
+    private int migrateFiles(boolean inlineColumn, boolean contentsTable) {
+        if (!inlineColumn && !contentsTable) {
+            return 0;
+        }
+        String source = inlineColumn ? "f.data" : "null";
+        String join = contentsTable ? " left join " + CONTENTS_TABLE + " c on c.file_id = f.file_id" : "";
+        String select = "select " + source + ", " + (contentsTable ? "c.data" : "null") + " from product_files f"
+                + join + " where f.file_id = ?";
+        String update = "update product_files set file_size = ?, file_hash = ?, content_type = ?"
+                + (inlineColumn ? ", data = null" : "") + " where file_id = ?";
+        List<LegacyFile> pending = jdbcTemplate.query(
+                "select file_id, filename from product_files where file_hash is null",
+                (rs, rowNum) -> new LegacyFile(rs.getString(1), rs.getString(1), rs.getString(2)));
+        return migrate(pending, select, update, contentsTable);
+    }
+
+    private int migrate(List<LegacyFile> pending, String select, String update, boolean contentsTable) {
+        int migrated = 0;
+        for (LegacyFile file : pending) {
+            Boolean moved = transactionTemplate.execute(status -> {
+                String contentType = FileUtils.contentType(file.filename() == null ? "" : file.filename());
+                StoredContent content = jdbcTemplate.query(select, rs -> {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    InputStream data = binary(rs, 1);
+                    if (data == null) {
+                        data = binary(rs, 2);
+                    }
+                    return data == null ? null : productFileRepository.saveContent(data, contentType);
+                }, file.rowId());
+                if (content == null) {
+                    LOGGER.warn("Legacy product file {} has no stored content", file.fileId());
+                    return false;
+                }
+                jdbcTemplate.update(update, content.size(), content.hash(), contentType, file.rowId());
+                if (contentsTable) {
+                    jdbcTemplate.update("delete from " + CONTENTS_TABLE + " where file_id = ?", file.fileId());
+                }
+                return true;
+            });
+            if (Boolean.TRUE.equals(moved)) {
+                migrated++;
+            }
+        }
+        return migrated;
+    }
+
+    // PostgreSQL trzyma @Lob byte[] jako oid (large object), H2 jako BLOB, a bytea czytana jest wprost
+    private static InputStream binary(ResultSet rs, int column) throws SQLException {
+        int type = rs.getMetaData().getColumnType(column);
+        if (type == Types.NULL) {
+            return null;
+        }
+        if (type == Types.BLOB || type == Types.BIGINT) {
+            Blob blob = rs.getBlob(column);
+            return blob == null ? null : blob.getBinaryStream();
+        }
+        return rs.getBinaryStream(column);
+    }
+
+    private boolean hasTable(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : List.of(table, table.toUpperCase(Locale.ROOT))) {
+                try (ResultSet tables = metaData.getTables(null, null, name, null)) {
+                    if (tables.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }));
+    }
+
+    private boolean hasColumn(String table, String column) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet lower = metaData.getColumns(null, null, table, column)) {
+                if (lower.next()) {
+                    return true;
+                }
+            }
+            // H2 zapisuje nazwy wielkimi literami, PostgreSQL małymi
+            try (ResultSet upper = metaData.getColumns(null, null, table.toUpperCase(Locale.ROOT),
+                    column.toUpperCase(Locale.ROOT))) {
+                return upper.next();
+            }
+        }));
+    }
+
+    // rowId - klucz wiersza (id produktu dla podglądu, file_id dla pozostałych plików)
+    private record LegacyFile(String rowId, String fileId, String filename) {
+    }
+}
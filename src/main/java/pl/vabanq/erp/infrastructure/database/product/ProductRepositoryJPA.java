@@ -1,38 +1,150 @@
 package pl.vabanq.erp.infrastructure.database.product;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import pl.vabanq.erp.domain.error.DomainException;
 import pl.vabanq.erp.domain.error.ErrorCode;
 import pl.vabanq.erp.domain.products.product.ProductRepository;
+import pl.vabanq.erp.domain.products.product.model.PrintTime;
 import pl.vabanq.erp.domain.products.product.model.Product;
+import pl.vabanq.erp.domain.products.product.model.ProductFile;
+import pl.vabanq.erp.domain.products.product.model.ProductSummary;
+import pl.vabanq.erp.infrastructure.database.product.entity.AccessoryQuantityEmbeddable;
+import pl.vabanq.erp.infrastructure.database.product.entity.ProductFileEmbeddable;
+import pl.vabanq.erp.infrastructure.database.product.entity.ProductFileJPA;
 import pl.vabanq.erp.infrastructure.database.product.entity.ProductJPA;
+import pl.vabanq.erp.infrastructure.database.product.spring.ProductAccessoryView;
+import pl.vabanq.erp.infrastructure.database.product.spring.ProductEanView;
+import pl.vabanq.erp.infrastructure.database.product.spring.ProductFileRepositorySpringJPA;
 import pl.vabanq.erp.infrastructure.database.product.spring.ProductRepositorySpringJPA;
+import pl.vabanq.erp.infrastructure.database.product.spring.ProductSummaryView;
+import pl.vabanq.erp.infrastructure.mappers.ProductJPAToProduct;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 public class ProductRepositoryJPA implements ProductRepository {
+    private static final int FLUSH_SIZE = 500;
     private final ProductRepositorySpringJPA productRepository;
+    private final ProductFileRepositorySpringJPA productFileRepository;
     private final ConversionService conversionService;
+    private final ProductJPAToProduct productJPAToProduct;
+    private final EntityManager entityManager;
 
-    public ProductRepositoryJPA(ProductRepositorySpringJPA productRepository, ConversionService conversionService) {
+    public ProductRepositoryJPA(ProductRepositorySpringJPA productRepository,
+                                ProductFileRepositorySpringJPA productFileRepository,
+                                ConversionService conversionService, ProductJPAToProduct productJPAToProduct,
+                                EntityManager entityManager) {
         this.productRepository = productRepository;
+        this.productFileRepository = productFileRepository;
         this.conversionService = conversionService;
+        this.productJPAToProduct = productJPAToProduct;
+        this.entityManager = entityManager;
     }
 
     @Transactional
     @Override
     public void saveProduct(Product product) {
-        ProductJPA existingEntity = productRepository.findById(product.id())
-                .orElseGet(() -> conversionService.convert(product, ProductJPA.class));
+        ProductJPA productJPA = conversionService.convert(product, ProductJPA.class);
 
-        if (existingEntity == null) {
+        if (productJPA == null) {
             throw new DomainException(ErrorCode.INTERNAL_ERROR);
         }
 
-        productRepository.save(conversionService.convert(product, ProductJPA.class));
+        productRepository.save(productJPA);
+    }
+
+    // persist zamiast save: id nadawane przez domenę, więc save robiłby merge (SELECT) dla każdego produktu.
+    // INSERT-y grupowane wsadowo (hibernate.jdbc.batch_size), kontekst czyszczony co porcję.
+    @Transactional
+    @Override
+    public void saveProducts(List<Product> products) {
+        for (int i = 0; i < products.size(); i++) {
+            entityManager.persist(conversionService.convert(products.get(i), ProductJPA.class));
+            if ((i + 1) % FLUSH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // Jeden UPDATE tylko ze zmienionymi kolumnami, bez wczytywania encji; lista akcesoriów podmieniana
+    // tylko wtedy, gdy faktycznie się zmieniła
+    @Transactional
+    @Override
+    public void patchProduct(Product oldProduct, Product updatedProduct) {
+        String id = oldProduct.id();
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<ProductJPA> update = criteriaBuilder.createCriteriaUpdate(ProductJPA.class);
+        Root<ProductJPA> root = update.from(ProductJPA.class);
+
+        boolean changed = set(update, root.get("name"), oldProduct.name(), updatedProduct.name());
+        changed |= set(update, root.get("ean"), oldProduct.ean(), updatedProduct.ean());
+        changed |= set(update, root.get("price"), oldProduct.price(), updatedProduct.price());
+        changed |= set(update, root.get("allegroTax"), oldProduct.allegroTax(), updatedProduct.allegroTax());
+        changed |= set(update, root.get("description"), oldProduct.description(), updatedProduct.description());
+        if (!Objects.equals(oldProduct.printTime(), updatedProduct.printTime())) {
+            update.set(root.get("printTime").get("hours"), updatedProduct.printTime().hours());
+            update.set(root.get("printTime").get("minutes"), updatedProduct.printTime().minutes());
+            changed = true;
+        }
+        if (!Objects.equals(oldProduct.preview(), updatedProduct.preview())) {
+            setPreview(update, root.get("file"), updatedProduct.preview());
+            changed = true;
+        }
+
+        if (changed) {
+            update.where(criteriaBuilder.equal(root.get("id"), id));
+            if (entityManager.createQuery(update).executeUpdate() == 0) {
+                throw new DomainException(ErrorCode.NOT_FOUND, id);
+            }
+        }
+
+        if (!Objects.equals(oldProduct.accessoriesQ(), updatedProduct.accessoriesQ())) {
+            ProductJPA productJPA = productRepository.findById(id)
+                    .orElseThrow(() -> new DomainException(ErrorCode.NOT_FOUND, id));
+            productJPA.getAccessoriesQ().clear();
+            updatedProduct.accessoriesQ().forEach(accessoryQ -> productJPA.getAccessoriesQ()
+                    .add(new AccessoryQuantityEmbeddable(accessoryQ.accessory().id(), accessoryQ.quantity())));
+        } else if (!changed && !productRepository.existsById(id)) {
+            throw new DomainException(ErrorCode.NOT_FOUND, id);
+        }
+    }
+
+    private static <T> boolean set(CriteriaUpdate<ProductJPA> update, Path<T> path, T oldValue, T newValue) {
+        if (Objects.equals(oldValue, newValue)) {
+            return false;
+        }
+        update.set(path, newValue);
+        return true;
+    }
+
+    private static void setPreview(CriteriaUpdate<ProductJPA> update, Path<ProductFileEmbeddable> file,
+                                   ProductFile preview) {
+        update.set(file.<String>get("fileId"), preview != null ? preview.id() : null);
+        update.set(file.<String>get("filename"), preview != null ? preview.filename() : null);
+        update.set(file.<Long>get("size"), preview != null ? preview.size() : null);
+        update.set(file.<String>get("hash"), preview != null ? preview.hash() : null);
+        update.set(file.<String>get("contentType"), preview != null ? preview.contentType() : null);
     }
 
     @Transactional
@@ -43,14 +155,117 @@ public class ProductRepositoryJPA implements ProductRepository {
         return conversionService.convert(productJPA, Product.class);
     }
 
+    // Dodanie pliku to jeden INSERT - istniejące pliki produktu nie są ruszane
+    @Transactional
+    @Override
+    public void addFile(String productId, ProductFile file) {
+        if (!productRepository.existsById(productId)) {
+            throw new DomainException(ErrorCode.NOT_FOUND, productId);
+        }
+        productFileRepository.save(new ProductFileJPA(file.id(), productId, file.filename(), file.size(),
+                file.hash(), file.contentType()));
+    }
+
+    @Transactional
+    @Override
+    public boolean removeFile(String productId, String fileId) {
+        return productFileRepository.deleteFile(productId, fileId) > 0;
+    }
+
     public void cleanUp() {
+        productFileRepository.deleteAll();
         productRepository.deleteAll();
     }
 
     @Transactional
+    @Override
     public List<Product> getAllProducts() {
-        return productRepository.findAll().stream()
-                .map(productJPA -> conversionService.convert(productJPA, Product.class))
+        return productJPAToProduct.convertAll(productRepository.findAll());
+    }
+
+    @Override
+    public List<String> getAllProductIds() {
+        return productRepository.findAllIds();
+    }
+
+    @Transactional
+    @Override
+    public List<Product> getProducts(String afterId, int limit) {
+        List<ProductJPA> page = afterId == null
+                ? productRepository.findAllByOrderByIdAsc(Limit.of(limit))
+                : productRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+        return productJPAToProduct.convertAll(page);
+    }
+
+    // Encje odłączane po każdej porcji, więc kontekst utrwalania nie rośnie razem z katalogiem
+    @Transactional(readOnly = true)
+    @Override
+    public void streamProducts(int chunkSize, Consumer<List<Product>> chunkConsumer) {
+        try (Stream<ProductJPA> products = productRepository.streamAllByOrderByIdAsc()) {
+            List<ProductJPA> chunk = new ArrayList<>(chunkSize);
+            Iterator<ProductJPA> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == chunkSize || !iterator.hasNext()) {
+                    chunkConsumer.accept(productJPAToProduct.convertAll(chunk));
+                    chunk.clear();
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<ProductSummary> getAllProductSummaries() {
+        return toSummaries(productRepository.findSummariesByOrderByIdAsc());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<ProductSummary> getProductSummaries(String afterId, int limit) {
+        return toSummaries(afterId == null
+                ? productRepository.findSummariesByOrderByIdAsc(Limit.of(limit))
+                : productRepository.findSummariesByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit)));
+    }
+
+    private static List<ProductSummary> toSummaries(List<ProductSummaryView> views) {
+        return views.stream()
+                .map(view -> new ProductSummary(view.getId(), view.getName(), view.getEan(),
+                        view.getPrintTime() == null ? null
+                                : new PrintTime(view.getPrintTime().getHours(), view.getPrintTime().getMinutes()),
+                        view.getPrice(), view.getAllegroTax(), view.getDescription()))
                 .toList();
     }
+
+    @Transactional
+    @Override
+    public List<Product> getProducts(Collection<String> ids) {
+        return productJPAToProduct.convertAll(productRepository.findAllById(ids));
+    }
+
+    @Override
+    public Optional<String> findProductIdByEan(String ean) {
+        return productRepository.findIdByEan(ean);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Map<String, String> getProductIdsByEan() {
+        return productRepository.findAllByEanIsNotNull().stream()
+                .collect(Collectors.toMap(ProductEanView::getEan, ProductEanView::getId, (first, second) -> first));
+    }
+
+    @Override
+    public List<String> getDuplicatedEans() {
+        return productRepository.findDuplicatedEans();
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Map<String, Set<String>> getAccessoryIdsByProduct() {
+        return productRepository.findAllAccessoryUsages().stream()
+                .collect(Collectors.groupingBy(ProductAccessoryView::getProductId,
+                        Collectors.mapping(ProductAccessoryView::getAccessoryId, Collectors.toSet())));
+    }
 }
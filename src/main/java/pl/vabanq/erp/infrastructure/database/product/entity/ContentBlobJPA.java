@@ -0,0 +1,76 @@
+package pl.vabanq.erp.infrastructure.database.product.entity;
+
+import jakarta.persistence.*;
+import pl.vabanq.erp.infrastructure.storage.ContentCodec;
+
+// Licznik odwołań do treści w magazynie plików - ta sama treść (po SHA-256) zapisana jest na dysku tylko raz
+@Entity
+@Table(name = "content_blobs")
+public class ContentBlobJPA {
+    @Id
+    private String hash;
+
+    @Column(name = "blob_size", nullable = false)
+    private long size;
+
+    // Rozmiar na dysku po zakodowaniu, size to rozmiar oryginalnej treści
+    @Column(name = "stored_size")
+    private Long storedSize;
+
+    @Enumerated(EnumType.STRING)
+    private ContentCodec codec;
+
+    @Column(name = "reference_count", nullable = false)
+    private long referenceCount;
+
+    public ContentBlobJPA() {
+    }
+
+    public ContentBlobJPA(String hash, long size, long storedSize, ContentCodec codec) {
+        this.hash = hash;
+        this.size = size;
+        this.storedSize = storedSize;
+        this.codec = codec;
+        this.referenceCount = 1;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public Long getStoredSize() {
+        return storedSize;
+    }
+
+    public void setStoredSize(Long storedSize) {
+        this.storedSize = storedSize;
+    }
+
+    public ContentCodec getCodec() {
+        return codec;
+    }
+
+    public void setCodec(ContentCodec codec) {
+        this.codec = codec;
+    }
+
+    public long getReferenceCount() {
+        return referenceCount;
+    }
+
+    public void setReferenceCount(long referenceCount) {
+        this.referenceCount = referenceCount;
+    }
+}
@@ -1,22 +1,28 @@
 // ProductFileEmbeddable.java
 package pl.vabanq.erp.infrastructure.database.product.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Embeddable;
-import jakarta.persistence.Lob;
 
+// Tylko metadane pliku - treść leży w magazynie adresowanym skrótem (hash), czytana dopiero na żądanie
 @Embeddable
 public class ProductFileEmbeddable {
     private String fileId;
-    @Lob
-    private byte[] data;
     private String filename;
+    @Column(name = "file_size")
+    private Long size;
+    @Column(name = "file_hash")
+    private String hash;
+    private String contentType;
 
     public ProductFileEmbeddable() {}
 
-    public ProductFileEmbeddable(String fileId, byte[] data, String filename) {
+    public ProductFileEmbeddable(String fileId, String filename, Long size, String hash, String contentType) {
         this.fileId = fileId;
-        this.data = data;
         this.filename = filename;
+        this.size = size;
+        this.hash = hash;
+        this.contentType = contentType;
     }
 
     public String getFileId() {
@@ -28,14 +34,6 @@ public class ProductFileEmbeddable {
     }
 
     // Getters and setters
-    public byte[] getData() {
-        return data;
-    }
-
-    public void setData(byte[] data) {
-        this.data = data;
-    }
-
     public String getFilename() {
         return filename;
     }
@@ -43,4 +41,28 @@ public class ProductFileEmbeddable {
     public void setFilename(String filename) {
         this.filename = filename;
     }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
 }
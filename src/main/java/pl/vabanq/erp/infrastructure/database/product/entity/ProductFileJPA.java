@@ -0,0 +1,115 @@
+package pl.vabanq.erp.infrastructure.database.product.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+// Plik produktu jako osobny wiersz - dodanie/usunięcie pliku dotyka tylko jego wiersza, a nie całej listy
+@Entity
+@Table(name = "product_files", indexes = @Index(name = "idx_product_files_product_id", columnList = "product_id"))
+public class ProductFileJPA implements Persistable<String> {
+    @Id
+    @Column(name = "file_id")
+    private String fileId;
+
+    @Column(name = "product_id", nullable = false)
+    private String productId;
+
+    private String filename;
+    @Column(name = "file_size")
+    private Long size;
+    @Column(name = "file_hash")
+    private String hash;
+    private String contentType;
+    private LocalDateTime createdAt;
+
+    @Transient
+    private boolean isNew;
+
+    public ProductFileJPA() {}
+
+    public ProductFileJPA(String fileId, String productId, String filename, Long size, String hash, String contentType) {
+        this.fileId = fileId;
+        this.productId = productId;
+        this.filename = filename;
+        this.size = size;
+        this.hash = hash;
+        this.contentType = contentType;
+        this.createdAt = LocalDateTime.now();
+        this.isNew = true;
+    }
+
+    // Id nadawane przez domenę - bez tego Spring Data robiłby merge (dodatkowy SELECT) zamiast persist
+    @Override
+    public String getId() {
+        return fileId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public void setFilename(String filename) {
+        this.filename = filename;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -2,12 +2,16 @@
 package pl.vabanq.erp.infrastructure.database.product.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.util.List;
 
+// Unikalny indeks na EAN tworzy ddl-auto=update. Na bazie z powtórzonymi EAN-ami Hibernate tylko loguje błąd,
+// dlatego start aplikacji zatrzymuje ProductService.warmUpIndexes - duplikaty trzeba wtedy poprawić ręcznie
+// (select ean from products group by ean having count(*) > 1) i uruchomić aplikację ponownie.
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = @Index(name = "idx_product_ean", columnList = "ean", unique = true))
 public class ProductJPA {
     @Id
     private String id;
@@ -16,7 +20,9 @@ public class ProductJPA {
     private String ean;
 
     @ElementCollection
-    @CollectionTable(name = "product_accessories", joinColumns = @JoinColumn(name = "product_id"))
+    @BatchSize(size = 100)
+    @CollectionTable(name = "product_accessories", joinColumns = @JoinColumn(name = "product_id"),
+            indexes = @Index(name = "idx_product_accessories_accessory", columnList = "accessory_id"))
     private List<AccessoryQuantityEmbeddable> accessoriesQ;
 
     @Embedded
@@ -24,15 +30,10 @@ public class ProductJPA {
 
     @Embedded
     @AttributeOverrides({
-        @AttributeOverride(name = "data", column = @Column(name = "file_data")),
         @AttributeOverride(name = "filename", column = @Column(name = "file_name"))
     })
     private ProductFileEmbeddable file;
 
-    @ElementCollection
-    @CollectionTable(name = "product_files", joinColumns = @JoinColumn(name = "product_id"))
-    private List<ProductFileEmbeddable> files;
-
     private BigDecimal price;
     private BigDecimal allegroTax;
     private String description;
@@ -40,15 +41,13 @@ public class ProductJPA {
     public ProductJPA() {}
 
     public ProductJPA(String id, String name, String ean, List<AccessoryQuantityEmbeddable> accessoriesQ,
-                      PrintTimeEmbeddable printTime, ProductFileEmbeddable file, List<ProductFileEmbeddable> files,
-                      BigDecimal price, BigDecimal allegroTax, String description) {
+                      PrintTimeEmbeddable printTime, ProductFileEmbeddable file, BigDecimal price, BigDecimal allegroTax, String description) {
         this.id = id;
         this.name = name;
         this.ean = ean;
         this.accessoriesQ = accessoriesQ;
         this.printTime = printTime;
         this.file = file;
-        this.files = files;
         this.price = price;
         this.allegroTax = allegroTax;
         this.description = description;
@@ -102,14 +101,6 @@ public class ProductJPA {
         this.file = file;
     }
 
-    public List<ProductFileEmbeddable> getFiles() {
-        return files;
-    }
-
-    public void setFiles(List<ProductFileEmbeddable> files) {
-        this.files = files;
-    }
-
     public BigDecimal getPrice() {
         return price;
     }
@@ -0,0 +1,32 @@
+package pl.vabanq.erp.infrastructure.database.product.spring;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import pl.vabanq.erp.infrastructure.database.product.entity.ContentBlobJPA;
+import pl.vabanq.erp.infrastructure.storage.ContentCodec;
+
+public interface ContentBlobRepositorySpringJPA extends JpaRepository<ContentBlobJPA, String> {
+    @Transactional
+    @Modifying
+    @Query("update ContentBlobJPA b set b.referenceCount = b.referenceCount + 1 where b.hash = :hash")
+    int incrementReferences(@Param("hash") String hash);
+
+    @Transactional
+    @Modifying
+    @Query("update ContentBlobJPA b set b.referenceCount = b.referenceCount - 1 where b.hash = :hash and b.referenceCount > 0")
+    int decrementReferences(@Param("hash") String hash);
+
+    @Transactional
+    @Modifying
+    @Query("update ContentBlobJPA b set b.codec = :codec, b.storedSize = :storedSize where b.hash = :hash")
+    int updateEncoding(@Param("hash") String hash, @Param("codec") ContentCodec codec,
+                       @Param("storedSize") long storedSize);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ContentBlobJPA b where b.hash = :hash and b.referenceCount = 0")
+    int deleteUnreferenced(@Param("hash") String hash);
+}
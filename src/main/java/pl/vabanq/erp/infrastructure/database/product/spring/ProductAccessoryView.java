@@ -0,0 +1,8 @@
+package pl.vabanq.erp.infrastructure.database.product.spring;
+
+// Projekcja do rozgrzewania indeksu użyć akcesoriów - pary z tabeli product_accessories
+public interface ProductAccessoryView {
+    String getProductId();
+
+    String getAccessoryId();
+}
@@ -0,0 +1,8 @@
+package pl.vabanq.erp.infrastructure.database.product.spring;
+
+// Projekcja do rozgrzewania indeksu EAN - tylko dwie kolumny zamiast całych produktów
+public interface ProductEanView {
+    String getId();
+
+    String getEan();
+}
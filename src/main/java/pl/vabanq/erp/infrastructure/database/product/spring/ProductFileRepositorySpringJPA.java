@@ -0,0 +1,18 @@
+package pl.vabanq.erp.infrastructure.database.product.spring;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import pl.vabanq.erp.infrastructure.database.product.entity.ProductFileJPA;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductFileRepositorySpringJPA extends JpaRepository<ProductFileJPA, String> {
+    List<ProductFileJPA> findAllByProductIdInOrderByCreatedAtAscFileIdAsc(Collection<String> productIds);
+
+    @Modifying
+    @Query("delete from ProductFileJPA f where f.productId = :productId and f.fileId = :fileId")
+    int deleteFile(@Param("productId") String productId, @Param("fileId") String fileId);
+}
@@ -1,7 +1,46 @@
 package pl.vabanq.erp.infrastructure.database.product.spring;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import pl.vabanq.erp.infrastructure.database.product.entity.ProductJPA;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 public interface ProductRepositorySpringJPA extends JpaRepository<ProductJPA, String> {
+    List<ProductJPA> findAllByOrderByIdAsc(Limit limit);
+
+    List<ProductJPA> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
+
+    List<ProductSummaryView> findSummariesByOrderByIdAsc();
+
+    List<ProductSummaryView> findSummariesByOrderByIdAsc(Limit limit);
+
+    List<ProductSummaryView> findSummariesByIdGreaterThanOrderByIdAsc(String id, Limit limit);
+
+    @Query("select p.id from ProductJPA p order by p.id")
+    List<String> findAllIds();
+
+    @Query("select p.id from ProductJPA p where p.ean = :ean")
+    Optional<String> findIdByEan(String ean);
+
+    List<ProductEanView> findAllByEanIsNotNull();
+
+    @Query("select p.ean from ProductJPA p where p.ean is not null group by p.ean having count(p) > 1 order by p.ean")
+    List<String> findDuplicatedEans();
+
+    @Query("select p.id as productId, a.accessoryId as accessoryId from ProductJPA p join p.accessoriesQ a")
+    List<ProductAccessoryView> findAllAccessoryUsages();
+
+    // Kursor tylko do przodu (wymaga otwartej transakcji) - sterownik pobiera wiersze paczkami po fetch size
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<ProductJPA> streamAllByOrderByIdAsc();
 }
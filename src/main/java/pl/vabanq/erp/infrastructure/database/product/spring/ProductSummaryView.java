@@ -0,0 +1,23 @@
+package pl.vabanq.erp.infrastructure.database.product.spring;
+
+import pl.vabanq.erp.infrastructure.database.product.entity.PrintTimeEmbeddable;
+
+import java.math.BigDecimal;
+
+// Zamknięta projekcja - zapytanie wybiera tylko te kolumny, bez złączeń z akcesoriami i plikami
+public interface ProductSummaryView {
+    String getId();
+
+    String getName();
+
+    String getEan();
+
+    BigDecimal getPrice();
+
+    BigDecimal getAllegroTax();
+
+    // Osadzony czas druku to kolumny tabeli products - bez złączenia
+    PrintTimeEmbeddable getPrintTime();
+
+    String getDescription();
+}
@@ -0,0 +1,35 @@
+package pl.vabanq.erp.infrastructure.mappers;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+import pl.vabanq.erp.api.response.AccessoryExportRow;
+import pl.vabanq.erp.domain.Identifiable;
+import pl.vabanq.erp.domain.error.DomainException;
+import pl.vabanq.erp.domain.error.ErrorCode;
+import pl.vabanq.erp.domain.products.accessory.model.AccessoryType;
+import pl.vabanq.erp.domain.products.accessory.model.FastenersAccessory;
+import pl.vabanq.erp.domain.products.accessory.model.FilamentAccessory;
+import pl.vabanq.erp.domain.products.accessory.model.PackagingAccessory;
+
+@Component
+public class AccessoryToAccessoryExportRowConverter implements Converter<Identifiable, AccessoryExportRow> {
+
+    @Override
+    public AccessoryExportRow convert(Identifiable source) {
+        return switch (source) {
+            case FilamentAccessory filament -> new AccessoryExportRow(
+                    AccessoryType.FILAMENT, filament.id(), filament.name(), filament.producer(),
+                    filament.filamentType(), filament.printTemperature(), filament.deskTemperature(),
+                    filament.pricePerKg(), filament.color(), filament.description(), null, null, null,
+                    filament.quantity());
+            case PackagingAccessory packaging -> new AccessoryExportRow(
+                    AccessoryType.PACKAGING, packaging.id(), packaging.name(), null, null, null, null, null, null,
+                    null, packaging.packagingSize(), packaging.dimensions(), packaging.netPricePerQuantity(),
+                    packaging.quantity());
+            case FastenersAccessory fasteners -> new AccessoryExportRow(
+                    AccessoryType.FASTENERS, fasteners.id(), fasteners.name(), null, null, null, null, null, null,
+                    null, null, null, fasteners.netPricePerQuantity(), fasteners.quantity());
+            default -> throw new DomainException(ErrorCode.INTERNAL_ERROR);
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package pl.vabanq.erp.infrastructure.mappers;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+import pl.vabanq.erp.api.request.FastenersAccessoryImportRequest;
+import pl.vabanq.erp.domain.products.accessory.model.FastenersAccessoryDraft;
+
+@Component
+public class FastenersAccessoryImportRequestToFastenersAccessoryDraftConverter implements Converter<FastenersAccessoryImportRequest, FastenersAccessoryDraft> {
+
+    @Override
+    public FastenersAccessoryDraft convert(FastenersAccessoryImportRequest source) {
+        return new FastenersAccessoryDraft(
+                source.id(),
+                source.name(),
+                source.netPricePerQuantity(),
+                source.quantity()
+        );
+    }
+}
@@ -0,0 +1,26 @@
+package pl.vabanq.erp.infrastructure.mappers;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+import pl.vabanq.erp.api.request.FilamentAccessoryImportRequest;
+import pl.vabanq.erp.domain.products.accessory.model.FilamentAccessoryDraft;
+
+@Component
+public class FilamentAccessoryImportRequestToFilamentAccessoryDraftConverter implements Converter<FilamentAccessoryImportRequest, FilamentAccessoryDraft> {
+
+    @Override
+    public FilamentAccessoryDraft convert(FilamentAccessoryImportRequest source) {
+        return new FilamentAccessoryDraft(
+                source.id(),
+                source.name(),
+                source.producer(),
+                source.filamentType(),
+                source.printTemperature(),
+                source.deskTemperature(),
+                source.pricePerKg(),
+                source.color(),
+                source.description(),
+                source.quantity()
+        );
+    }
+}
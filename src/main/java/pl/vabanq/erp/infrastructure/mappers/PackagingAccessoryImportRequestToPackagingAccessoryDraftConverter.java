@@ -0,0 +1,22 @@
+package pl.vabanq.erp.infrastructure.mappers;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+import pl.vabanq.erp.api.request.PackagingAccessoryImportRequest;
+import pl.vabanq.erp.domain.products.accessory.model.PackagingAccessoryDraft;
+
+@Component
+public class PackagingAccessoryImportRequestToPackagingAccessoryDraftConverter implements Converter<PackagingAccessoryImportRequest, PackagingAccessoryDraft> {
+
+    @Override
+    public PackagingAccessoryDraft convert(PackagingAccessoryImportRequest source) {
+        return new PackagingAccessoryDraft(
+                source.id(),
+                source.name(),
+                source.packagingSize(),
+                source.dimensions(),
+                source.netPricePerQuantity(),
+                source.quantity()
+        );
+    }
+}
@@ -0,0 +1,22 @@
+package pl.vabanq.erp.infrastructure.mappers;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+import pl.vabanq.erp.api.response.ProductCostResponse;
+import pl.vabanq.erp.domain.products.cost.model.ProductCost;
+
+@Component
+public class ProductCostToProductCostResponseConverter implements Converter<ProductCost, ProductCostResponse> {
+
+    @Override
+    public ProductCostResponse convert(ProductCost source) {
+        return new ProductCostResponse(
+                source.productId(),
+                source.filament(),
+                source.packaging(),
+                source.fasteners(),
+                source.machine(),
+                source.total()
+        );
+    }
+}
@@ -2,42 +2,64 @@ package pl.vabanq.erp.infrastructure.mappers;
 
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.stereotype.Component;
+import pl.vabanq.erp.domain.Identifiable;
+import pl.vabanq.erp.domain.error.DomainException;
+import pl.vabanq.erp.domain.error.ErrorCode;
 import pl.vabanq.erp.domain.products.product.model.*;
 import pl.vabanq.erp.infrastructure.database.accessory.AccessoryRepositoryJPA;
 import pl.vabanq.erp.infrastructure.database.product.entity.*;
+import pl.vabanq.erp.infrastructure.database.product.spring.ProductFileRepositorySpringJPA;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Component
 public class ProductJPAToProduct implements Converter<ProductJPA, Product> {
 
     private final AccessoryRepositoryJPA accessoryRepository;
+    private final ProductFileRepositorySpringJPA productFileRepository;
 
-    public ProductJPAToProduct(AccessoryRepositoryJPA accessoryRepository) {
+    public ProductJPAToProduct(AccessoryRepositoryJPA accessoryRepository,
+                               ProductFileRepositorySpringJPA productFileRepository) {
         this.accessoryRepository = accessoryRepository;
+        this.productFileRepository = productFileRepository;
     }
 
     @Override
     public Product convert(ProductJPA productJPA) {
+        return convertAll(List.of(productJPA)).getFirst();
+    }
+
+    // Konwersja całej strony produktów - akcesoria pobierane jednym zapytaniem na typ, a pliki jednym zapytaniem
+    // dla całej strony, zamiast osobno dla każdego produktu
+    public List<Product> convertAll(List<ProductJPA> productJPAs) {
+        if (productJPAs.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Identifiable> accessories = accessoryRepository.getAccessories(accessoryIds(productJPAs));
+        Map<String, List<ProductFile>> files = productFileRepository.findAllByProductIdInOrderByCreatedAtAscFileIdAsc(
+                        productJPAs.stream().map(ProductJPA::getId).toList()).stream()
+                .collect(Collectors.groupingBy(ProductFileJPA::getProductId,
+                        Collectors.mapping(ProductJPAToProduct::toProductFile, Collectors.toList())));
+        return productJPAs.stream()
+                .map(productJPA -> convert(productJPA, accessories, files.getOrDefault(productJPA.getId(), List.of())))
+                .toList();
+    }
+
+    public Product convert(ProductJPA productJPA, Map<String, Identifiable> accessories, List<ProductFile> filesDomain) {
         List<AccessoryQuantity> accessoriesQDomain = productJPA.getAccessoriesQ().stream()
                 .map(aq -> new AccessoryQuantity(
-                        accessoryRepository.getAccessory(aq.getAccessoryId()),
+                        resolveAccessory(accessories, aq.getAccessoryId()),
                         aq.getQuantity()
                 ))
                 .collect(Collectors.toList());
 
-        List<ProductFile> filesDomain = productJPA.getFiles().stream()
-                .map(pf -> new ProductFile(pf.getFileId(), pf.getData(), pf.getFilename()))
-                .collect(Collectors.toList());
-
         ProductFile productFile = null;
         if (productJPA.getFile() != null) {
-            productFile = new ProductFile(
-                    productJPA.getFile().getFileId(),
-                    productJPA.getFile().getData(),
-                    productJPA.getFile().getFilename()
-            );
+            productFile = toProductFile(productJPA.getFile());
         }
 
         return new Product(
@@ -56,4 +78,29 @@ public class ProductJPAToProduct implements Converter<ProductJPA, Product> {
                 productJPA.getDescription()
         );
     }
+
+    private static ProductFile toProductFile(ProductFileEmbeddable file) {
+        long size = file.getSize() != null ? file.getSize() : 0;
+        return new ProductFile(file.getFileId(), file.getFilename(), size, file.getHash(), file.getContentType());
+    }
+
+    private static ProductFile toProductFile(ProductFileJPA file) {
+        long size = file.getSize() != null ? file.getSize() : 0;
+        return new ProductFile(file.getFileId(), file.getFilename(), size, file.getHash(), file.getContentType());
+    }
+
+    private static Set<String> accessoryIds(Collection<ProductJPA> productJPAs) {
+        return productJPAs.stream()
+                .flatMap(productJPA -> productJPA.getAccessoriesQ().stream())
+                .map(AccessoryQuantityEmbeddable::getAccessoryId)
+                .collect(Collectors.toSet());
+    }
+
+    private static Identifiable resolveAccessory(Map<String, Identifiable> accessories, String accessoryId) {
+        Identifiable accessory = accessories.get(accessoryId);
+        if (accessory == null) {
+            throw new DomainException(ErrorCode.NOT_FOUND, accessoryId);
+        }
+        return accessory;
+    }
 }
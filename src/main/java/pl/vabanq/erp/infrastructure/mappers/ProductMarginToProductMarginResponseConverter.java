@@ -0,0 +1,23 @@
+package pl.vabanq.erp.infrastructure.mappers;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+import pl.vabanq.erp.api.response.ProductMarginResponse;
+import pl.vabanq.erp.domain.products.cost.model.ProductMargin;
+
+@Component
+public class ProductMarginToProductMarginResponseConverter implements Converter<ProductMargin, ProductMarginResponse> {
+
+    @Override
+    public ProductMarginResponse convert(ProductMargin source) {
+        return new ProductMarginResponse(
+                source.productId(),
+                source.name(),
+                source.price(),
+                source.allegroTax(),
+                source.cost(),
+                source.margin(),
+                source.marginPercent()
+        );
+    }
+}
@@ -0,0 +1,24 @@
+package pl.vabanq.erp.infrastructure.mappers;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+import pl.vabanq.erp.api.request.ProductRequest;
+import pl.vabanq.erp.domain.products.product.model.ProductDraft;
+
+@Component
+public class ProductRequestToProductDraftConverter implements Converter<ProductRequest, ProductDraft> {
+
+    @Override
+    public ProductDraft convert(ProductRequest source) {
+        return new ProductDraft(
+                source.name(),
+                source.ean(),
+                source.accessoriesQ(),
+                source.printHours(),
+                source.printMinutes(),
+                source.price(),
+                source.allegroTax(),
+                source.description()
+        );
+    }
+}
@@ -0,0 +1,27 @@
+package pl.vabanq.erp.infrastructure.mappers;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+import pl.vabanq.erp.api.response.ProductResponse;
+import pl.vabanq.erp.domain.products.product.model.ProductSummary;
+
+// Pola spoza projekcji zostają puste - odpowiedź zawiera tylko pola wybrane przez ?fields=
+@Component
+public class ProductSummaryToProductResponseConverter implements Converter<ProductSummary, ProductResponse> {
+
+    @Override
+    public ProductResponse convert(ProductSummary source) {
+        return new ProductResponse(
+                source.id(),
+                source.name(),
+                source.ean(),
+                null,
+                source.printTime(),
+                source.price(),
+                source.allegroTax(),
+                source.description(),
+                null,
+                null
+        );
+    }
+}
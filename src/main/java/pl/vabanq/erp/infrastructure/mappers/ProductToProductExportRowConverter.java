@@ -0,0 +1,30 @@
+package pl.vabanq.erp.infrastructure.mappers;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+import pl.vabanq.erp.api.response.ProductExportRow;
+import pl.vabanq.erp.domain.products.product.model.Product;
+import pl.vabanq.erp.domain.products.product.model.ProductFile;
+
+@Component
+public class ProductToProductExportRowConverter implements Converter<Product, ProductExportRow> {
+
+    @Override
+    public ProductExportRow convert(Product source) {
+        return new ProductExportRow(
+                source.id(),
+                source.name(),
+                source.ean(),
+                source.accessoriesQ().stream()
+                        .map(accessoryQ -> accessoryQ.accessory().id() + ":" + accessoryQ.quantity())
+                        .toList(),
+                source.printTime().hours(),
+                source.printTime().minutes(),
+                source.price(),
+                source.allegroTax(),
+                source.description(),
+                source.preview() != null ? source.preview().id() : null,
+                source.files().stream().map(ProductFile::id).toList()
+        );
+    }
+}
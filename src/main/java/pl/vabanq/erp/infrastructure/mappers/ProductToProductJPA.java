@@ -16,16 +16,10 @@ public class ProductToProductJPA implements Converter<Product, ProductJPA> {
                 .map(aq -> new AccessoryQuantityEmbeddable(aq.accessory().id(), aq.quantity()))
                 .collect(Collectors.toList());
 
-        List<ProductFileEmbeddable> filesEntities = null;
-        if (product.files() != null) {
-            filesEntities = product.files().stream()
-                    .map(pf -> new ProductFileEmbeddable(pf.id(), pf.data(), pf.filename()))
-                    .toList();
-        }
-
+        // Pliki produktu (files) są zapisywane osobno jako ProductFileJPA - tutaj tylko podgląd
         ProductFileEmbeddable productFileEmbeddable = null;
         if (product.preview() != null) {
-            productFileEmbeddable = new ProductFileEmbeddable(product.preview().id(), product.preview().data(), product.preview().filename());
+            productFileEmbeddable = toProductFileEmbeddable(product.preview());
         }
 
         return new ProductJPA(
@@ -35,10 +29,13 @@ public class ProductToProductJPA implements Converter<Product, ProductJPA> {
                 accessoriesQEntities,
                 new PrintTimeEmbeddable(product.printTime().hours(), product.printTime().minutes()),
                 productFileEmbeddable,
-                filesEntities,
                 product.price(),
                 product.allegroTax(),
                 product.description()
         );
     }
+
+    private static ProductFileEmbeddable toProductFileEmbeddable(ProductFile file) {
+        return new ProductFileEmbeddable(file.id(), file.filename(), file.size(), file.hash(), file.contentType());
+    }
 }
@@ -7,8 +7,11 @@ import pl.vabanq.erp.api.response.*;
 import pl.vabanq.erp.domain.products.accessory.model.FastenersAccessory;
 import pl.vabanq.erp.domain.products.accessory.model.FilamentAccessory;
 import pl.vabanq.erp.domain.products.accessory.model.PackagingAccessory;
+import pl.vabanq.erp.domain.products.product.model.AccessoryQuantity;
 import pl.vabanq.erp.domain.products.product.model.Product;
+import pl.vabanq.erp.domain.products.product.model.ProductFile;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
@@ -16,26 +19,23 @@ public class ProductToProductResponseConverter implements Converter<Product, Pro
 
     @Override
     public ProductResponse convert(Product source) {
-        // Konwersja FastenersAccessory
-        List<Pair<Double, FastenersAccessoryResponse>> fasteners = source.accessoriesQ().stream()
-                .filter(accessoryQuantity -> accessoryQuantity.accessory() instanceof FastenersAccessory)
-                .map(accessoryQuantity -> Pair.of(accessoryQuantity.quantity(),
-                        toFastenersAccessoryResponse((FastenersAccessory) accessoryQuantity.accessory())))
-                .toList();
+        List<Pair<Double, FastenersAccessoryResponse>> fasteners = new ArrayList<>();
+        List<Pair<Double, FilamentAccessoryResponse>> filaments = new ArrayList<>();
+        List<Pair<Double, PackagingAccessoryResponse>> packagings = new ArrayList<>();
 
-        // Konwersja FilamentAccessory
-        List<Pair<Double, FilamentAccessoryResponse>> filaments = source.accessoriesQ().stream()
-                .filter(accessoryQuantity -> accessoryQuantity.accessory() instanceof FilamentAccessory)
-                .map(accessoryQuantity -> Pair.of(accessoryQuantity.quantity(),
-                        toFilamentAccessoryResponse((FilamentAccessory) accessoryQuantity.accessory())))
-                .toList();
-
-        // Konwersja PackagingAccessory
-        List<Pair<Double, PackagingAccessoryResponse>> packagings = source.accessoriesQ().stream()
-                .filter(accessoryQuantity -> accessoryQuantity.accessory() instanceof PackagingAccessory)
-                .map(accessoryQuantity -> Pair.of(accessoryQuantity.quantity(),
-                        toPackagingAccessoryResponse((PackagingAccessory) accessoryQuantity.accessory())))
-                .toList();
+        // Jedno przejście po akcesoriach, rozdzielenie po typie
+        for (AccessoryQuantity accessoryQuantity : source.accessoriesQ()) {
+            switch (accessoryQuantity.accessory()) {
+                case FastenersAccessory fastener ->
+                        fasteners.add(Pair.of(accessoryQuantity.quantity(), toFastenersAccessoryResponse(fastener)));
+                case FilamentAccessory filament ->
+                        filaments.add(Pair.of(accessoryQuantity.quantity(), toFilamentAccessoryResponse(filament)));
+                case PackagingAccessory packaging ->
+                        packagings.add(Pair.of(accessoryQuantity.quantity(), toPackagingAccessoryResponse(packaging)));
+                default -> {
+                }
+            }
+        }
 
         // Tworzenie ProductAccessoriesResponse na podstawie skonwertowanych akcesoriów
         ProductAccessoriesResponse productAccessories = new ProductAccessoriesResponse(fasteners, filaments, packagings);
@@ -50,8 +50,24 @@ public class ProductToProductResponseConverter implements Converter<Product, Pro
                 source.price(),
                 source.allegroTax(),
                 source.description(),
-                source.preview(),
-                source.files()
+                source.preview() == null ? null : toProductFileResponse(source.preview(),
+                        "/api/products/" + source.id() + "/preview"),
+                source.files() == null ? null : source.files().stream()
+                        .map(file -> toProductFileResponse(file,
+                                "/api/products/" + source.id() + "/files/" + file.id()))
+                        .toList()
+        );
+    }
+
+    // Tylko opis pliku i adres do pobrania treści - odpowiedź nie rośnie z rozmiarem plików
+    private ProductFileResponse toProductFileResponse(ProductFile file, String url) {
+        return new ProductFileResponse(
+                file.id(),
+                file.filename(),
+                file.size(),
+                file.hash(),
+                file.contentType(),
+                url
         );
     }
 
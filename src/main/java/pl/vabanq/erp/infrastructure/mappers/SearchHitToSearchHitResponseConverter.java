@@ -0,0 +1,20 @@
+package pl.vabanq.erp.infrastructure.mappers;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+import pl.vabanq.erp.api.response.SearchHitResponse;
+import pl.vabanq.erp.domain.search.model.SearchHit;
+
+@Component
+public class SearchHitToSearchHitResponseConverter implements Converter<SearchHit, SearchHitResponse> {
+
+    @Override
+    public SearchHitResponse convert(SearchHit source) {
+        return new SearchHitResponse(
+                source.id(),
+                source.type(),
+                source.name(),
+                source.score()
+        );
+    }
+}
@@ -0,0 +1,25 @@
+package pl.vabanq.erp.infrastructure.mappers;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+import pl.vabanq.erp.api.response.SimulatedProductCostResponse;
+import pl.vabanq.erp.domain.products.cost.model.SimulatedProductCost;
+
+@Component
+public class SimulatedProductCostToSimulatedProductCostResponseConverter
+        implements Converter<SimulatedProductCost, SimulatedProductCostResponse> {
+
+    @Override
+    public SimulatedProductCostResponse convert(SimulatedProductCost source) {
+        return new SimulatedProductCostResponse(
+                source.productId(),
+                source.name(),
+                source.currentCost(),
+                source.simulatedCost(),
+                source.costDelta(),
+                source.currentMargin(),
+                source.simulatedMargin(),
+                source.marginDelta()
+        );
+    }
+}
@@ -0,0 +1,55 @@
+package pl.vabanq.erp.infrastructure.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Sposób zapisu treści na dysku. Formaty tekstowe (STL ASCII, OBJ, G-code) kompresują się kilkukrotnie,
+// a PNG/JPEG/3MF (zip) są już skompresowane i zapisywane bez zmian.
+public enum ContentCodec {
+    IDENTITY {
+        @Override
+        OutputStream encode(OutputStream output) {
+            return output;
+        }
+
+        @Override
+        InputStream decode(InputStream input) {
+            return input;
+        }
+    },
+    GZIP {
+        @Override
+        OutputStream encode(OutputStream output) throws IOException {
+            return new GZIPOutputStream(output, BUFFER_SIZE) {
+                {
+                    def.setLevel(Deflater.BEST_SPEED);
+                }
+            };
+        }
+
+        @Override
+        InputStream decode(InputStream input) throws IOException {
+            return new GZIPInputStream(input, BUFFER_SIZE);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Set<String> COMPRESSIBLE_CONTENT_TYPES = Set.of(
+            "model/stl",
+            "model/obj",
+            "text/x-gcode"
+    );
+
+    abstract OutputStream encode(OutputStream output) throws IOException;
+
+    abstract InputStream decode(InputStream input) throws IOException;
+
+    static ContentCodec forContentType(String contentType) {
+        return COMPRESSIBLE_CONTENT_TYPES.contains(contentType) ? GZIP : IDENTITY;
+    }
+}
@@ -0,0 +1,237 @@
+package pl.vabanq.erp.infrastructure.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import pl.vabanq.erp.domain.error.DomainException;
+import pl.vabanq.erp.domain.error.ErrorCode;
+import pl.vabanq.erp.domain.products.product.ProductFileRepository;
+import pl.vabanq.erp.domain.products.product.model.StoredContent;
+import pl.vabanq.erp.domain.utility.FileUtils;
+import pl.vabanq.erp.infrastructure.database.product.entity.ContentBlobJPA;
+import pl.vabanq.erp.infrastructure.database.product.spring.ContentBlobRepositorySpringJPA;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Treść plików produktów na lokalnym dysku, adresowana skrótem: <root>/<2 pierwsze znaki sha256>/<sha256>.
+// Identyczne pliki zapisywane są raz, a liczba odwołań trzymana jest w tabeli content_blobs.
+@Repository
+public class ProductFileRepositoryFileSystem implements ProductFileRepository {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductFileRepositoryFileSystem.class);
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final String TEMP_DIRECTORY = ".tmp";
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private final Path root;
+    private final ContentBlobRepositorySpringJPA contentBlobRepository;
+    // Chroni parę (plik na dysku, licznik odwołań) - kopiowanie treści odbywa się poza blokadą
+    private final Lock blobLock = new ReentrantLock();
+
+    public ProductFileRepositoryFileSystem(@Value("${files.storage.path:storage/files}") String root,
+                                           ContentBlobRepositorySpringJPA contentBlobRepository) throws IOException {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+        this.contentBlobRepository = contentBlobRepository;
+        Files.createDirectories(this.root);
+    }
+
+    // Zapis kawałkami po CHUNK_SIZE bajtów - rozmiar i SHA-256 (oryginalnej treści) liczone w locie, cały plik nigdy
+    // nie trafia na stertę. Jeśli treść o tym skrócie już istnieje, plik tymczasowy jest odrzucany i zwiększany jest
+    // tylko licznik. Kodek wybierany jest po typie treści i zapisywany razem z licznikiem.
+    @Override
+    public StoredContent saveContent(InputStream content, String contentType) {
+        ContentCodec codec = ContentCodec.forContentType(contentType);
+        Path temp = null;
+        try {
+            Path tempDirectory = Files.createDirectories(root.resolve(TEMP_DIRECTORY));
+            temp = Files.createTempFile(tempDirectory, "upload", ".tmp");
+            MessageDigest digest = FileUtils.sha256Digest();
+            long size = 0;
+            try (content; OutputStream output = codec.encode(Files.newOutputStream(temp))) {
+                byte[] buffer = new byte[CHUNK_SIZE];
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                    output.write(buffer, 0, read);
+                    size += read;
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            addReference(hash, size, codec, temp);
+            return new StoredContent(size, hash);
+        } catch (IOException e) {
+            LOGGER.error("Error writing file content", e);
+            throw new DomainException(ErrorCode.INTERNAL_ERROR);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    // Treść zapisana bez kodeka zwracana jako FileChannel wprost z pliku, skompresowana - dekodowana strumieniowo.
+    // Kodek pochodzi z content_blobs, bo ta sama treść ma jeden plik niezależnie od liczby odwołań
+    @Override
+    public ReadableByteChannel openContent(String hash) {
+        Path path = path(hash);
+        ContentCodec codec = contentBlobRepository.findById(hash)
+                .map(ContentBlobJPA::getCodec)
+                .orElse(ContentCodec.IDENTITY);
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            if (codec == ContentCodec.IDENTITY) {
+                return channel;
+            }
+            try {
+                return Channels.newChannel(codec.decode(Channels.newInputStream(channel)));
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (NoSuchFileException e) {
+            throw new DomainException(ErrorCode.NOT_FOUND, hash);
+        } catch (IOException e) {
+            LOGGER.error("Error reading file content with hash: {}", hash, e);
+            throw new DomainException(ErrorCode.INTERNAL_ERROR);
+        }
+    }
+
+    // Treść usuwana z dysku dopiero, gdy nie odwołuje się do niej żaden plik produktu
+    @Override
+    public void releaseContent(String hash) {
+        if (hash == null) {
+            return;
+        }
+        blobLock.lock();
+        try {
+            contentBlobRepository.decrementReferences(hash);
+            if (contentBlobRepository.deleteUnreferenced(hash) > 0) {
+                Files.deleteIfExists(path(hash));
+                deleteRenditions(hash);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error deleting file content with hash: {}", hash, e);
+            throw new DomainException(ErrorCode.INTERNAL_ERROR);
+        } finally {
+            blobLock.unlock();
+        }
+    }
+
+    // Miniatura zapisywana obok oryginału: <root>/<2 pierwsze znaki>/<sha256>_<rozmiar>
+    @Override
+    public void saveRendition(String hash, int size, InputStream content) {
+        Path temp = null;
+        try {
+            Path tempDirectory = Files.createDirectories(root.resolve(TEMP_DIRECTORY));
+            temp = Files.createTempFile(tempDirectory, "rendition", ".tmp");
+            try (content) {
+                Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            blobLock.lock();
+            try {
+                // Oryginał mógł zostać usunięty w trakcie renderowania - wtedy miniatura byłaby osierocona
+                if (Files.exists(path(hash))) {
+                    Files.move(temp, renditionPath(hash, size), StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                }
+            } finally {
+                blobLock.unlock();
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error writing rendition {} of file content with hash: {}", size, hash, e);
+            throw new DomainException(ErrorCode.INTERNAL_ERROR);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    @Override
+    public boolean hasRendition(String hash, int size) {
+        return Files.exists(renditionPath(hash, size));
+    }
+
+    @Override
+    public ReadableByteChannel openRendition(String hash, int size) {
+        try {
+            return FileChannel.open(renditionPath(hash, size), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw new DomainException(ErrorCode.NOT_FOUND, hash);
+        } catch (IOException e) {
+            LOGGER.error("Error reading rendition {} of file content with hash: {}", size, hash, e);
+            throw new DomainException(ErrorCode.INTERNAL_ERROR);
+        }
+    }
+
+    private void deleteRenditions(String hash) throws IOException {
+        try (DirectoryStream<Path> renditions = Files.newDirectoryStream(path(hash).getParent(), hash + "_*")) {
+            for (Path rendition : renditions) {
+                Files.deleteIfExists(rendition);
+            }
+        }
+    }
+
+    private void addReference(String hash, long size, ContentCodec codec, Path temp) throws IOException {
+        blobLock.lock();
+        try {
+            Path target = path(hash);
+            boolean referenced = contentBlobRepository.incrementReferences(hash) > 0;
+            boolean missing = !Files.exists(target);
+            if (!referenced || missing) {
+                Files.createDirectories(target.getParent());
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            if (!referenced) {
+                contentBlobRepository.save(new ContentBlobJPA(hash, size, Files.size(target), codec));
+            } else if (missing) {
+                // Brakujący plik odtworzony z bieżącego zapisu, który mógł użyć innego kodeka niż pierwotny
+                contentBlobRepository.updateEncoding(hash, codec, Files.size(target));
+            }
+        } finally {
+            blobLock.unlock();
+        }
+    }
+
+    public void cleanUp() {
+        contentBlobRepository.deleteAll();
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder())
+                    .filter(path -> !path.equals(root))
+                    .forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new DomainException(ErrorCode.INTERNAL_ERROR);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.warn("Could not delete temporary file: {}", path, e);
+        }
+    }
+
+    private Path path(String hash) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+            throw new DomainException(ErrorCode.NOT_FOUND, hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private Path renditionPath(String hash, int size) {
+        Path original = path(hash);
+        return original.resolveSibling(hash + "_" + size);
+    }
+}
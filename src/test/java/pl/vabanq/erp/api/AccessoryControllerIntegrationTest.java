@@ -7,14 +7,27 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.util.Pair;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import pl.vabanq.erp.api.request.AccessoryImportRequest;
+import pl.vabanq.erp.api.request.FastenersAccessoryImportRequest;
 import pl.vabanq.erp.api.request.FastenersAccessoryRequest;
+import pl.vabanq.erp.api.request.FilamentAccessoryImportRequest;
 import pl.vabanq.erp.api.request.FilamentAccessoryRequest;
 import pl.vabanq.erp.api.request.PackagingAccessoryRequest;
 import pl.vabanq.erp.domain.products.accessory.AccessoryService;
+import pl.vabanq.erp.domain.products.product.ProductService;
 import pl.vabanq.erp.infrastructure.database.accessory.AccessoryRepositoryJPA;
+import pl.vabanq.erp.infrastructure.database.product.ProductRepositoryJPA;
 
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -34,11 +47,82 @@ public class AccessoryControllerIntegrationTest {
     @Autowired
     private AccessoryRepositoryJPA accessoryRepository;
 
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepositoryJPA productRepository;
+
     @BeforeEach
     void setUp() {
         accessoryRepository.cleanUp();
     }
 
+    @Test
+    @DisplayName("Get Products Using Accessory - Success")
+    void shouldGetProductsUsingAccessory() throws Exception {
+        // Arrange
+        productRepository.cleanUp();
+        String screwId = accessoryService.saveFastenersAccessory("Screw", "5.99", "100").id();
+        String boltId = accessoryService.saveFastenersAccessory("Bolt", "3.50", "50").id();
+        String first = productService.saveProduct("First product", "5901234567001", List.of(Pair.of(2.0, screwId)),
+                1, 0, "10.00", "1.00", "Uses screws only").id();
+        String second = productService.saveProduct("Second product", "5901234567002",
+                List.of(Pair.of(1.0, screwId), Pair.of(4.0, boltId)), 1, 0, "10.00", "1.00", "Uses screws and bolts").id();
+
+        // Act & Assert
+        mockMvc.perform(get("/api/accessories/{id}/used-by", screwId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+        mockMvc.perform(get("/api/accessories/{id}/used-by", boltId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(second));
+
+        // Zmiana akcesoriów produktu przenosi go w indeksie
+        productService.patchProduct(second, null, null, List.of(Pair.of(4.0, boltId)), null, null, null, null, null);
+        String eTag = mockMvc.perform(get("/api/accessories/{id}/used-by", screwId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(first))
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        mockMvc.perform(get("/api/accessories/{id}/used-by", "missing-accessory"))
+                .andExpect(status().isBadRequest());
+        // Pasujący ETag nie ukrywa braku akcesorium
+        mockMvc.perform(get("/api/accessories/{id}/used-by", "missing-accessory").header("If-None-Match", eTag))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Get All Filaments - Not Modified Until Written")
+    void shouldAnswerNotModifiedUntilFilamentsChange() throws Exception {
+        // Arrange
+        String filamentId = accessoryService.saveFilament(
+                "PLA 1kg", "XYZ", "PLA", "200.0", "60.0", "19.99", "#FFFFFF", "High-quality filament", "100.0"
+        ).id();
+        String eTag = performList(get("/api/accessories/filaments"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        // Act & Assert
+        performList(get("/api/accessories/filaments").header("If-None-Match", "\"other\", " + eTag))
+                .andExpect(status().isNotModified());
+        // Zmiana innej kolekcji nie unieważnia filamentów
+        accessoryService.saveFastenersAccessory("Screw", "5.99", "100");
+        performList(get("/api/accessories/filaments").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        accessoryService.updateFilament(filamentId, null, null, null, null, null, "21.99", null, null, null);
+        performList(get("/api/accessories/filaments").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].pricePerKg").value(21.99));
+    }
+
     @Test
     @DisplayName("Save Filament Accessory - Success")
     void shouldSaveFilamentAccessory() throws Exception {
@@ -188,7 +272,7 @@ public class AccessoryControllerIntegrationTest {
     @DisplayName("Get All Filaments - Success")
     void shouldGetAllFilaments() throws Exception {
         // Act & Assert
-        mockMvc.perform(get("/api/accessories/filaments"))
+        performList(get("/api/accessories/filaments"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").isNotEmpty());
     }
@@ -197,8 +281,47 @@ public class AccessoryControllerIntegrationTest {
     @DisplayName("Get All Packaging Accessories - Success")
     void shouldGetAllPackagingAccessories() throws Exception {
         // Act & Assert
-        mockMvc.perform(get("/api/accessories/packaging"))
+        performList(get("/api/accessories/packaging"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").isNotEmpty());
     }
+
+    @Test
+    @DisplayName("Bulk import Accessories - per-row report")
+    void shouldImportAccessoriesInBulk() throws Exception {
+        // Arrange
+        String fastenersId = accessoryService.saveFastenersAccessory("Screws M3", "0.10", "500").id();
+        AccessoryImportRequest request = new AccessoryImportRequest(
+                List.of(new FilamentAccessoryImportRequest(null, "PLA 1kg", "XYZ", "PLA", "200.0", "60.0", "19.99",
+                        "#FFFFFF", "High-quality filament", "100.0")),
+                null,
+                List.of(new FastenersAccessoryImportRequest(fastenersId, null, "0.12", null),
+                        new FastenersAccessoryImportRequest(null, "Nuts", "-1", "10"))
+        );
+
+        // Act & Assert
+        mockMvc.perform(post("/api/accessories/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.rows[0].type").value("FILAMENT"))
+                .andExpect(jsonPath("$.rows[0].operation").value("CREATE"))
+                .andExpect(jsonPath("$.rows[1].type").value("FASTENERS"))
+                .andExpect(jsonPath("$.rows[1].id").value(fastenersId))
+                .andExpect(jsonPath("$.rows[1].operation").value("UPDATE"))
+                .andExpect(jsonPath("$.rows[2].row").value(2))
+                .andExpect(jsonPath("$.rows[2].error").isNotEmpty());
+
+        assertEquals(new BigDecimal("0.12"), accessoryService.getAllFasteners().getFirst().netPricePerQuantity());
+    }
+
+    // Listy wysyłane są strumieniowo - treść dostępna dopiero po dokończeniu asynchronicznej odpowiedzi
+    private ResultActions performList(MockHttpServletRequestBuilder request) throws Exception {
+        ResultActions actions = mockMvc.perform(request);
+        MvcResult result = actions.andReturn();
+        return result.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(result)) : actions;
+    }
 }
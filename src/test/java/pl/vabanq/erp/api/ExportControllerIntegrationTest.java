@@ -0,0 +1,157 @@
+package pl.vabanq.erp.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.util.Pair;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import pl.vabanq.erp.domain.products.accessory.AccessoryService;
+import pl.vabanq.erp.domain.products.product.ProductService;
+import pl.vabanq.erp.domain.products.product.model.Product;
+import pl.vabanq.erp.infrastructure.database.accessory.AccessoryRepositoryJPA;
+import pl.vabanq.erp.infrastructure.database.product.ProductRepositoryJPA;
+import pl.vabanq.erp.infrastructure.storage.ProductFileRepositoryFileSystem;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+public class ExportControllerIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepositoryJPA productRepository;
+
+    @Autowired
+    private AccessoryRepositoryJPA accessoryRepository;
+
+    @Autowired
+    private ProductFileRepositoryFileSystem productFileRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private AccessoryService accessoryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String screwId;
+
+    @BeforeEach
+    public void setUp() {
+        this.mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        productRepository.cleanUp();
+        accessoryRepository.cleanUp();
+        productFileRepository.cleanUp();
+
+        screwId = accessoryService.saveFastenersAccessory("Screw", "5.99", "100").id();
+    }
+
+    @Test
+    @DisplayName("Products are exported as NDJSON with files referenced by id")
+    public void shouldExportProductsAsNdjson() throws Exception {
+        // Arrange
+        Product first = productService.saveProduct("Product A", "1234567890123", List.of(Pair.of(2.0, screwId)),
+                1, 30, "150.00", "20.00", "Description A");
+        productService.saveProduct("Product B", "1234567890124", List.of(Pair.of(1.0, screwId)),
+                2, 0, "99.99", "10.00", "Description B");
+        String fileId = productService.addFile(first.id(),
+                new ByteArrayInputStream("solid model".getBytes()), "model.stl").files().getFirst().id();
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/export/products"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.ndjson\""))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        List<JsonNode> rows = body.lines().map(this::readTree).toList();
+        assertEquals(2, rows.size());
+        JsonNode row = rows.stream().filter(node -> node.get("id").asText().equals(first.id())).findFirst().orElseThrow();
+        assertEquals("Product A", row.get("name").asText());
+        assertEquals(screwId + ":2.0", row.get("accessories").get(0).asText());
+        assertEquals(fileId, row.get("fileIds").get(0).asText());
+        assertTrue(row.get("previewId").isNull());
+    }
+
+    @Test
+    @DisplayName("Accessories are exported as gzip-compressed CSV when the client accepts gzip")
+    public void shouldExportAccessoriesAsGzippedCsv() throws Exception {
+        // Arrange
+        accessoryService.saveFilament("PLA, 1kg", "XYZ", "PLA", "200.0", "60.0", "19.99", "#FFFFFF",
+                "High-quality \"PLA\" filament", "10.0");
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/export/accessories")
+                        .param("format", "csv")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        byte[] compressed = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+        List<String> lines = gunzip(compressed).lines().toList();
+        assertEquals(3, lines.size());
+        assertEquals("type,id,name,producer,filamentType,printTemperature,deskTemperature,pricePerKg,color,"
+                + "description,packagingSize,dimensions,netPricePerQuantity,quantity", lines.get(0));
+        assertTrue(lines.contains("FILAMENT," + accessoryRepository.getAllFilaments().getFirst().id()
+                + ",\"PLA, 1kg\",XYZ,PLA,200.0,60.0,19.99,#FFFFFF,\"High-quality \"\"PLA\"\" filament\",,,,10.0"));
+        assertTrue(lines.contains("FASTENERS," + screwId + ",Screw,,,,,,,,,,5.99,100.0"));
+    }
+
+    @Test
+    @DisplayName("Unknown export format is rejected")
+    public void shouldRejectUnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/export/products").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode readTree(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String gunzip(byte[] compressed) throws IOException {
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package pl.vabanq.erp.api;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,19 +8,25 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 import pl.vabanq.erp.api.request.ProductRequest;
 import pl.vabanq.erp.api.response.ProductResponse;
 import pl.vabanq.erp.domain.products.accessory.AccessoryService;
 import pl.vabanq.erp.domain.products.product.ProductService;
+import pl.vabanq.erp.domain.products.product.model.Product;
 import pl.vabanq.erp.infrastructure.database.accessory.AccessoryRepositoryJPA;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.data.util.Pair;
 import pl.vabanq.erp.infrastructure.database.product.ProductRepositoryJPA;
 
+import java.math.BigDecimal;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.http.MediaType.APPLICATION_PDF_VALUE;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -48,8 +55,11 @@ public class ProductControllerIntegrationTest {
 
     private String screwId;
     private String boltId;
+    private int eanSequence;
     @Autowired
     private ProductService productService;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     @BeforeEach
     public void setUp() {
@@ -143,6 +153,177 @@ public class ProductControllerIntegrationTest {
                 .andExpect(jsonPath("$.ean").value("1234567890124"));
     }
 
+    @Test
+    public void shouldPatchOnlyProvidedFields() throws Exception {
+        // Arrange
+        String productId = createTestProduct();
+        ProductRequest patchRequest = new ProductRequest(null, null, null, null, null, "175.50", null, null);
+
+        // Act & Assert
+        mockMvc.perform(patch("/api/products/{id}", productId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patchRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price").value(175.50))
+                .andExpect(jsonPath("$.name").value("Test Product"))
+                .andExpect(jsonPath("$.printTime.hours").value(2));
+        assertEquals("Test Product", productService.getAllProducts().getFirst().name());
+    }
+
+    @Test
+    public void shouldRejectPatchWithInvalidField() throws Exception {
+        String productId = createTestProduct();
+        ProductRequest patchRequest = new ProductRequest(null, "123", null, null, null, null, null, null);
+
+        mockMvc.perform(patch("/api/products/{id}", productId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patchRequest)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void shouldGetProductByEan() throws Exception {
+        String productId = createTestProduct();
+
+        mockMvc.perform(get("/api/products/by-ean/{ean}", "1234567890000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(productId));
+        mockMvc.perform(get("/api/products/by-ean/{ean}", "1234567890999"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products/by-ean/{ean}", "123"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void shouldGetProductCost() throws Exception {
+        String productId = createTestProduct();
+
+        mockMvc.perform(get("/api/products/{id}/cost", productId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productId").value(productId))
+                .andExpect(jsonPath("$.fasteners").value(17.23))
+                .andExpect(jsonPath("$.filament").value(0.00))
+                .andExpect(jsonPath("$.total").value(17.23));
+    }
+
+    @Test
+    public void shouldGetMarginReport() throws Exception {
+        String productId = createTestProduct();
+
+        // 150.00 - 20.00 prowizji - 17.23 kosztu łączników
+        mockMvc.perform(get("/api/products/margins").param("accessoryId", screwId).param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.matched").value(1))
+                .andExpect(jsonPath("$.products[0].productId").value(productId))
+                .andExpect(jsonPath("$.products[0].margin").value(112.77));
+        mockMvc.perform(get("/api/products/margins").param("order", "sideways"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void shouldRejectDuplicateEan() throws Exception {
+        createTestProduct();
+        String otherProductId = createTestProduct();
+        ProductRequest duplicate = new ProductRequest("Duplicate", "1234567890000",
+                List.of(Pair.of(2.0, screwId)), 1, 15, "49.99", "5.00", "Duplicated EAN");
+
+        mockMvc.perform(post("/api/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(duplicate)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/products/{id}", otherProductId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new ProductRequest(null, "1234567890000", null, null, null, null, null, null))))
+                .andExpect(status().isBadRequest());
+
+        // Wiersze importu kolidujące z bazą albo z wcześniejszym wierszem są odrzucane pojedynczo
+        ProductRequest fresh = new ProductRequest("Imported Product", "1234567890500",
+                List.of(Pair.of(2.0, screwId)), 1, 15, "49.99", "5.00", "Imported from NDJSON");
+        mockMvc.perform(post("/api/products/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(objectMapper.writeValueAsString(fresh) + "\n"
+                                + objectMapper.writeValueAsString(fresh) + "\n"
+                                + objectMapper.writeValueAsString(duplicate) + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(2));
+        assertEquals(3, productService.getAllProducts().size());
+    }
+
+    @Test
+    public void shouldImportProductsFromNdjson() throws Exception {
+        // Arrange
+        ProductRequest valid = new ProductRequest("Imported Product", "1234567890123",
+                List.of(Pair.of(2.0, screwId)), 1, 15, "49.99", "5.00", "Imported from NDJSON");
+        ProductRequest unknownAccessory = new ProductRequest("Broken Product", "1234567890123",
+                List.of(Pair.of(1.0, "missing-accessory")), 1, 15, "49.99", "5.00", "Imported from NDJSON");
+        String body = objectMapper.writeValueAsString(valid) + "\n"
+                + "{not json}\n"
+                + objectMapper.writeValueAsString(unknownAccessory) + "\n";
+
+        // Act & Assert
+        mockMvc.perform(post("/api/products/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.rows[0].id").isNotEmpty())
+                .andExpect(jsonPath("$.rows[1].error").isNotEmpty())
+                .andExpect(jsonPath("$.rows[2].error").isNotEmpty());
+        assertEquals(1, productService.getAllProducts().size());
+    }
+
+    @Test
+    public void shouldReportRowsWithoutAccessories() throws Exception {
+        // Arrange: wiersz bez akcesoriów obok poprawnego w tej samej porcji
+        ProductRequest valid = new ProductRequest("Imported Product", "1234567890123",
+                List.of(Pair.of(2.0, screwId)), 1, 15, "49.99", "5.00", "Imported from NDJSON");
+        ProductRequest noAccessories = new ProductRequest("No Accessories", "1234567890124",
+                null, 1, 15, "49.99", "5.00", "Imported from NDJSON");
+
+        // Act & Assert
+        mockMvc.perform(post("/api/products/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(objectMapper.writeValueAsString(valid) + "\n"
+                                + objectMapper.writeValueAsString(noAccessories) + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.rows[0].id").isNotEmpty())
+                .andExpect(jsonPath("$.rows[1].error").isNotEmpty());
+        mockMvc.perform(post("/api/products/bulk")
+                        .contentType("text/csv")
+                        .content("name,ean,accessories,printHours,printMinutes,price,allegroTax,description\n"
+                                + "Csv Product,1234567890125,,2,30,150.00,20.00,No accessories at all\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(0))
+                .andExpect(jsonPath("$.failed").value(1));
+        assertEquals(1, productService.getAllProducts().size());
+    }
+
+    @Test
+    public void shouldImportProductsFromCsv() throws Exception {
+        String body = "name,ean,accessories,printHours,printMinutes,price,allegroTax,description\n"
+                + "Csv Product,1234567890123,%s:2;%s:1.5,2,30,150.00,20.00,\"Multi-line, quoted\ndescription\"\n"
+                .formatted(screwId, boltId)
+                + "X,1234567890123,%s:2,2,30,150.00,20.00,Name is too short\n".formatted(screwId);
+
+        mockMvc.perform(post("/api/products/bulk")
+                        .contentType("text/csv")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.rows[1].row").value(2));
+
+        List<Product> products = productService.getAllProducts();
+        assertEquals(1, products.size());
+        assertEquals(2, products.getFirst().accessoriesQ().size());
+        assertEquals("Multi-line, quoted\ndescription", products.getFirst().description());
+    }
+
     @Test
     public void shouldGetAllProductsSuccessfully() throws Exception {
         // Arrange: create some products
@@ -184,12 +365,150 @@ public class ProductControllerIntegrationTest {
                 .andExpect(status().isCreated());
 
         // Act & Assert
-        mockMvc.perform(get("/api/products")
+        performList(get("/api/products")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(2));
     }
 
+    @Test
+    public void shouldServeCachedFragmentsUntilProductOrAccessoryChanges() throws Exception {
+        // Arrange
+        String productId = createTestProduct();
+        String first = performList(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        double hits = fragmentCacheHits();
+
+        // Act & Assert: bez zmian fragment produktu pochodzi z cache
+        performList(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(first, true));
+        assertEquals(hits + 1, fragmentCacheHits());
+
+        // Zmiana produktu - nowa wersja, fragment serializowany od nowa
+        productService.patchProduct(productId, "Renamed Product", null, null, null, null, null, null, null);
+        performList(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(productId))
+                .andExpect(jsonPath("$[0].name").value("Renamed Product"))
+                .andExpect(jsonPath("$[0].productAccessories.fasteners.length()").value(2));
+        assertEquals(hits + 1, fragmentCacheHits());
+
+        // Zmiana ceny używanego akcesorium podbija wersję produktu - fragment z nową ceną
+        accessoryService.updateFastenersAccessory(screwId, null, "6.99", null);
+        String afterPriceChange = performList(get("/api/products"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        assertEquals(hits + 1, fragmentCacheHits());
+        ProductResponse product = objectMapper.readValue(afterPriceChange, ProductResponse[].class)[0];
+        assertEquals(new BigDecimal("6.99"), product.productAccessories().fasteners().stream()
+                .map(Pair::getSecond)
+                .filter(fasteners -> fasteners.id().equals(screwId))
+                .findFirst()
+                .orElseThrow()
+                .netPricePerQuantity());
+
+        performList(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(afterPriceChange, true));
+        assertEquals(hits + 2, fragmentCacheHits());
+    }
+
+    @Test
+    public void shouldGetProductsPageByCursor() throws Exception {
+        // Arrange: create three products
+        createTestProduct();
+        createTestProduct();
+        createTestProduct();
+
+        // Act & Assert: first page returns a cursor, last page does not
+        String firstPage = mockMvc.perform(get("/api/products")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/products")
+                        .param("after", cursor)
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    public void shouldReturnOnlySelectedFields() throws Exception {
+        String productId = createTestProduct();
+
+        mockMvc.perform(get("/api/products").param("fields", "price,id,name,ean"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(productId))
+                .andExpect(jsonPath("$[0].ean").value("1234567890000"))
+                .andExpect(jsonPath("$[0].price").value(150.00))
+                .andExpect(jsonPath("$[0].productAccessories").doesNotExist())
+                .andExpect(jsonPath("$[0].files").doesNotExist())
+                .andExpect(jsonPath("$[0].allegroTax").doesNotExist());
+        mockMvc.perform(get("/api/products").param("fields", "id,printTime,description"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].printTime.hours").value(2))
+                .andExpect(jsonPath("$[0].printTime.minutes").value(30))
+                .andExpect(jsonPath("$[0].description").value("Test description"))
+                .andExpect(jsonPath("$[0].productAccessories").doesNotExist());
+        // Pole spoza projekcji wymaga pełnego produktu
+        mockMvc.perform(get("/api/products").param("fields", "id,productAccessories"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].productAccessories.fasteners.length()").value(2))
+                .andExpect(jsonPath("$[0].name").doesNotExist());
+        mockMvc.perform(get("/api/products").param("limit", "1").param("fields", "id,name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products[0].name").value("Test Product"))
+                .andExpect(jsonPath("$.products[0].price").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value(productId));
+        mockMvc.perform(get("/api/products").param("fields", "id,bytes"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void shouldRejectInvalidPageLimit() throws Exception {
+        mockMvc.perform(get("/api/products")
+                        .param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void shouldStreamProductsAsNdjson() throws Exception {
+        // Arrange
+        createTestProduct();
+        createTestProduct();
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/products/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert: one JSON document per line
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        List<String> lines = body.lines().toList();
+        assertEquals(2, lines.size());
+        assertEquals("Test Product", objectMapper.readTree(lines.getFirst()).get("name").asText());
+    }
+
     @Test
     public void shouldUpdatePreviewSuccessfully() throws Exception {
         // Prepare MultipartFile for preview
@@ -239,6 +558,33 @@ public class ProductControllerIntegrationTest {
                 .andExpect(jsonPath("$.files[0].filename").value("document.pdf"));
     }
 
+    @Test
+    public void shouldDescribeFilesWithDownloadUrls() throws Exception {
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "model.stl", APPLICATION_OCTET_STREAM_VALUE, "solid model".getBytes());
+        String productId = createTestProduct();
+        String fileId = addFileToProduct(productId, file);
+
+        String url = performList(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].files[0].filename").value("model.stl"))
+                .andExpect(jsonPath("$[0].files[0].size").value("solid model".length()))
+                .andExpect(jsonPath("$[0].files[0].hash").isNotEmpty())
+                .andExpect(jsonPath("$[0].files[0].url").value("/api/products/" + productId + "/files/" + fileId))
+                .andExpect(jsonPath("$[0].preview").isEmpty())
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+                .replaceAll(".*\"url\":\"([^\"]+)\".*", "$1");
+
+        MvcResult result = mockMvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes("solid model".getBytes()));
+    }
+
     @Test
     public void shouldDeleteFileSuccessfully() throws Exception {
         // Prepare MultipartFile for file
@@ -254,11 +600,157 @@ public class ProductControllerIntegrationTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    public void shouldAnswerNotModifiedForUnchangedProducts() throws Exception {
+        createTestProduct();
+        String eTag = performList(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        performList(get("/api/products").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/products").param("limit", "10").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        // Zapis bez zmiany żadnego pola nie zmienia wersji
+        String productId = productService.getAllProducts().getFirst().id();
+        mockMvc.perform(patch("/api/products/{id}", productId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new ProductRequest("Test Product", null, null, null, null, null, null, null))))
+                .andExpect(status().isOk());
+        performList(get("/api/products").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        createTestProduct();
+        performList(get("/api/products").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    public void shouldAnswerNotModifiedForUnchangedProductByEan() throws Exception {
+        String productId = createTestProduct();
+        String eTag = mockMvc.perform(get("/api/products/by-ean/{ean}", "1234567890000"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        mockMvc.perform(get("/api/products/by-ean/{ean}", "1234567890000").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        // Zmiana ceny akcesorium zmienia treść produktu, więc i jego wersję
+        accessoryService.updateFastenersAccessory(screwId, null, "6.99", null);
+        mockMvc.perform(get("/api/products/by-ean/{ean}", "1234567890000").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(productId));
+    }
+
+    @Test
+    public void shouldAnswerNotModifiedForUnchangedFile() throws Exception {
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "model.stl", APPLICATION_OCTET_STREAM_VALUE, "solid model".getBytes());
+        String productId = createTestProduct();
+        String fileId = addFileToProduct(productId, file);
+
+        MvcResult result = mockMvc.perform(get("/api/products/{id}/files/{fileId}", productId, fileId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String eTag = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        mockMvc.perform(get("/api/products/{id}/files/{fileId}", productId, fileId).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void shouldDownloadFileSuccessfully() throws Exception {
+        // Arrange: create a product with a file
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "model.stl", APPLICATION_OCTET_STREAM_VALUE, "solid model".getBytes());
+        String productId = createTestProduct();
+        String fileId = addFileToProduct(productId, file);
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/products/{id}/files/{fileId}", productId, fileId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue("Content-Length", "solid model".length()))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"model.stl\""))
+                .andExpect(content().bytes("solid model".getBytes()));
+    }
+
+    @Test
+    public void shouldDownloadPreviewSuccessfully() throws Exception {
+        // Arrange
+        MockMultipartFile previewFile = new MockMultipartFile(
+                "file", "preview.jpg", IMAGE_JPEG_VALUE, "image content".getBytes());
+        String productId = createTestProduct();
+        mockMvc.perform(multipart("/api/products/{id}/preview", productId)
+                        .file(previewFile))
+                .andExpect(status().isOk());
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/products/{id}/preview", productId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(IMAGE_JPEG_VALUE))
+                .andExpect(content().bytes("image content".getBytes()));
+    }
+
+    @Test
+    public void shouldServeOriginalPreviewUntilRenditionIsReady() throws Exception {
+        // Arrange - treść nie jest obrazem, więc miniatura nigdy nie powstanie
+        MockMultipartFile previewFile = new MockMultipartFile(
+                "file", "preview.jpg", IMAGE_JPEG_VALUE, "image content".getBytes());
+        String productId = createTestProduct();
+        mockMvc.perform(multipart("/api/products/{id}/preview", productId)
+                        .file(previewFile))
+                .andExpect(status().isOk());
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/products/{id}/preview", productId).param("size", "256"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes("image content".getBytes()));
+        mockMvc.perform(get("/api/products/{id}/preview", productId).param("size", "100"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void shouldFailDownloadingUnknownFile() throws Exception {
+        String productId = createTestProduct();
+
+        mockMvc.perform(get("/api/products/{id}/files/{fileId}", productId, "unknown-file-id"))
+                .andExpect(status().isBadRequest());
+    }
+
     private String createTestProduct() throws Exception {
         // Create a sample ProductRequest
         ProductRequest productRequest = new ProductRequest(
                 "Test Product",
-                "1234567890123",
+                String.format("1234567890%03d", eanSequence++),
                 List.of(
                         Pair.of(2.0, screwId),  // Example accessory ID
                         Pair.of(1.5, boltId)    // Example accessory ID
@@ -300,4 +792,15 @@ public class ProductControllerIntegrationTest {
         return productResponse.files().get(0).id();  // Return the ID of the first file
     }
 
+    private double fragmentCacheHits() {
+        return meterRegistry.get("cache.gets").tag("cache", "json-fragments").tag("result", "hit")
+                .functionCounter().count();
+    }
+
+    // Listy wysyłane są strumieniowo - treść dostępna dopiero po dokończeniu asynchronicznej odpowiedzi
+    private ResultActions performList(MockHttpServletRequestBuilder request) throws Exception {
+        ResultActions actions = mockMvc.perform(request);
+        MvcResult result = actions.andReturn();
+        return result.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(result)) : actions;
+    }
 }
@@ -0,0 +1,93 @@
+package pl.vabanq.erp.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.util.Pair;
+import org.springframework.test.web.servlet.MockMvc;
+import pl.vabanq.erp.domain.products.accessory.AccessoryService;
+import pl.vabanq.erp.domain.products.product.ProductService;
+import pl.vabanq.erp.domain.search.SearchService;
+import pl.vabanq.erp.infrastructure.database.accessory.AccessoryRepositoryJPA;
+import pl.vabanq.erp.infrastructure.database.product.ProductRepositoryJPA;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class SearchControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepositoryJPA productRepository;
+
+    @Autowired
+    private AccessoryRepositoryJPA accessoryRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private AccessoryService accessoryService;
+
+    @Autowired
+    private SearchService searchService;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.cleanUp();
+        accessoryRepository.cleanUp();
+        searchService.rebuild();
+    }
+
+    @Test
+    @DisplayName("Saved products and accessories are searchable immediately")
+    void shouldFindSavedProductsAndAccessories() throws Exception {
+        // Arrange
+        String filamentId = accessoryService.saveFilament("PLA Galaxy Black", "Prusament", "PLA", "215", "60",
+                "29.99", "#000000", "Sparkling black filament", "1").id();
+        String productId = productService.saveProduct("Stojak na słuchawki", "5901234123457",
+                List.of(Pair.of(0.2, filamentId)), 3, 15, "49.99", "5.00", "Solidny stojak z PLA").id();
+
+        // Act & Assert
+        mockMvc.perform(get("/api/search").param("q", "sluchawki"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(productId))
+                .andExpect(jsonPath("$[0].type").value("PRODUCT"));
+
+        mockMvc.perform(get("/api/search").param("q", "prusamnt"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(filamentId))
+                .andExpect(jsonPath("$[0].type").value("FILAMENT"));
+
+        mockMvc.perform(get("/api/search").param("q", "pla").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        // Zmiana nazwy aktualizuje indeks
+        productService.patchProduct(productId, "Uchwyt na telefon", null, null, null, null, null, null, null);
+        mockMvc.perform(get("/api/search").param("q", "stojak sluchawki"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/api/search").param("q", "uchwyt"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(productId));
+    }
+
+    @Test
+    @DisplayName("Blank query is rejected")
+    void shouldRejectBlankQuery() throws Exception {
+        mockMvc.perform(get("/api/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+}
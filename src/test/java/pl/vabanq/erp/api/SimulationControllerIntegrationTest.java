@@ -0,0 +1,107 @@
+package pl.vabanq.erp.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.util.Pair;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import pl.vabanq.erp.api.request.PriceChangeRequest;
+import pl.vabanq.erp.domain.products.accessory.AccessoryService;
+import pl.vabanq.erp.domain.products.cost.ProductCostService;
+import pl.vabanq.erp.domain.products.product.ProductService;
+import pl.vabanq.erp.infrastructure.database.accessory.AccessoryRepositoryJPA;
+import pl.vabanq.erp.infrastructure.database.product.ProductRepositoryJPA;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class SimulationControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductRepositoryJPA productRepository;
+
+    @Autowired
+    private AccessoryRepositoryJPA accessoryRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private AccessoryService accessoryService;
+
+    @Autowired
+    private ProductCostService productCostService;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.cleanUp();
+        accessoryRepository.cleanUp();
+        productCostService.rebuild();
+    }
+
+    @Test
+    @DisplayName("Price change simulation reports cost and margin deltas without changing anything")
+    void shouldSimulatePriceChange() throws Exception {
+        // Arrange
+        String filamentId = accessoryService.saveFilament("PLA Galaxy Black", "Prusament", "PLA", "215", "60",
+                "100.00", "#000000", "Sparkling black filament", "1").id();
+        String screwId = accessoryService.saveFastenersAccessory("Screw", "0.50", "100").id();
+        String heavyId = productService.saveProduct("Heavy stand", "5901234567001",
+                List.of(Pair.of(500.0, filamentId)), 3, 0, "99.99", "5.00", "Uses half a spool").id();
+        String lightId = productService.saveProduct("Light stand", "5901234567002",
+                List.of(Pair.of(100.0, filamentId), Pair.of(2.0, screwId)), 1, 0, "29.99", "2.00",
+                "Uses a little filament").id();
+        productService.saveProduct("Screw set", "5901234567003",
+                List.of(Pair.of(10.0, screwId)), 0, 0, "9.99", "1.00", "No filament at all");
+        PriceChangeRequest request = new PriceChangeRequest(Map.of(filamentId, "120.00"));
+
+        // Act & Assert - największy spadek marży pierwszy, produkt bez filamentu pominięty
+        mockMvc.perform(post("/api/simulations/price-change")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(2))
+                .andExpect(jsonPath("$.products[0].productId").value(heavyId))
+                .andExpect(jsonPath("$.products[0].currentCost").value(50.00))
+                .andExpect(jsonPath("$.products[0].simulatedCost").value(60.00))
+                .andExpect(jsonPath("$.products[0].costDelta").value(10.00))
+                .andExpect(jsonPath("$.products[0].simulatedMargin").value(34.99))
+                .andExpect(jsonPath("$.products[0].marginDelta").value(-10.00))
+                .andExpect(jsonPath("$.products[1].productId").value(lightId))
+                .andExpect(jsonPath("$.products[1].marginDelta").value(-2.00));
+
+        assertEquals(new BigDecimal("50.00"), productCostService.getProductCost(heavyId).total());
+        assertEquals(new BigDecimal("100.00"), accessoryService.getAllFilaments().getFirst().pricePerKg());
+    }
+
+    @Test
+    @DisplayName("Price change simulation rejects invalid prices")
+    void shouldRejectInvalidPrice() throws Exception {
+        mockMvc.perform(post("/api/simulations/price-change")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new PriceChangeRequest(Map.of("any", "-1")))))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/simulations/price-change")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new PriceChangeRequest(Map.of()))))
+                .andExpect(status().isBadRequest());
+    }
+}
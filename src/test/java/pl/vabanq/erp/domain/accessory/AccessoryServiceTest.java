@@ -9,15 +9,15 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import pl.vabanq.erp.domain.products.accessory.AccessoryService;
-import pl.vabanq.erp.domain.products.accessory.model.FastenersAccessory;
-import pl.vabanq.erp.domain.products.accessory.model.FilamentAccessory;
-import pl.vabanq.erp.domain.products.accessory.model.PackagingAccessory;
+import pl.vabanq.erp.domain.Identifiable;
+import pl.vabanq.erp.domain.products.accessory.model.*;
 import pl.vabanq.erp.domain.change.ChangeTrackingService;
 import pl.vabanq.erp.domain.error.DomainException;
 import pl.vabanq.erp.domain.error.ErrorCode;
 import pl.vabanq.erp.infrastructure.database.accessory.AccessoryRepositoryJPA;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -28,12 +28,16 @@ public class AccessoryServiceTest {
 
     private AccessoryService accessoryService;
 
+    private final List<List<Identifiable>> notifications = new ArrayList<>();
+
     @Autowired
     private AccessoryRepositoryJPA accessoryRepository;
 
     @BeforeEach
     void setUp() {
         ChangeTrackingService changeTrackingService = new ChangeTrackingService();
+        notifications.clear();
+        changeTrackingService.addListener((type, changed) -> notifications.add(List.copyOf(changed)));
         accessoryService = new AccessoryService(changeTrackingService, accessoryRepository);
         accessoryRepository.cleanUp();
     }
@@ -732,4 +736,62 @@ public class AccessoryServiceTest {
                 )
         );
     }
+
+    @Test
+    @DisplayName("Should create, update and reject rows in one bulk import")
+    void shouldImportAccessoriesInBulk() {
+        // given
+        FilamentAccessory filament = accessoryService.saveFilament("PLA 1kg", "XYZ", "PLA", "200.0", "60.0",
+                "19.99", "#FFFFFF", "High-quality PLA filament", "10.0");
+        FastenersAccessory fasteners = accessoryService.saveFastenersAccessory("Screws M3", "0.10", "500");
+        FastenersAccessory otherFasteners = accessoryService.saveFastenersAccessory("Nuts M3", "0.05", "500");
+        notifications.clear();
+
+        List<AccessoryDraft> drafts = List.of(
+                // aktualizacja ceny, pozostałe pola bez zmian
+                new FilamentAccessoryDraft(filament.id(), null, null, null, null, null, "24.99", null, null, null),
+                // nowy filament z id z katalogu dostawcy
+                new FilamentAccessoryDraft("supplier-petg", "PETG 1kg", "ABC", "PETG", "240", "80", "29.99",
+                        "#000000", "Durable PETG filament", "5"),
+                // błędny kolor
+                new FilamentAccessoryDraft(null, "ABS 1kg", "ABC", "ABS", "250", "100", "21.00", "black", null, "5"),
+                new PackagingAccessoryDraft(null, "Box", "Small", "10x10x10", "1.50", "100"),
+                // id istniejącego akcesorium innego typu
+                new PackagingAccessoryDraft(otherFasteners.id(), "Box", "Small", "10x10x10", "1.50", "100"),
+                // bez zmian
+                new FastenersAccessoryDraft(fasteners.id(), "Screws M3", "0.10", "500"),
+                // powtórzone id w tym samym imporcie
+                new FastenersAccessoryDraft(fasteners.id(), "Screws M4", null, null)
+        );
+
+        // when
+        AccessoryImportReport report = accessoryService.importAccessories(drafts);
+
+        // then
+        assertEquals(2, report.created());
+        assertEquals(1, report.updated());
+        assertEquals(1, report.unchanged());
+        assertEquals(3, report.failed());
+        assertEquals(List.of("UPDATE", "CREATE"), report.rows().stream()
+                .filter(row -> row.type() == AccessoryType.FILAMENT && row.error() == null)
+                .map(AccessoryImportReport.RowResult::operation)
+                .toList());
+        assertEquals(3, report.rows().stream()
+                .filter(row -> row.type() == AccessoryType.FILAMENT)
+                .mapToInt(AccessoryImportReport.RowResult::row)
+                .max().orElseThrow());
+
+        FilamentAccessory updatedFilament = accessoryRepository.getFilamentAccessory(filament.id());
+        assertEquals(new BigDecimal("24.99"), updatedFilament.pricePerKg());
+        assertEquals(filament.name(), updatedFilament.name());
+        assertEquals("PETG 1kg", accessoryRepository.getFilamentAccessory("supplier-petg").name());
+        assertEquals(2, accessoryService.getAllFilaments().size());
+        assertEquals(1, accessoryService.getAllPackagingAccessories().size());
+        assertEquals("Screws M3", accessoryRepository.getFastenersAccessory(fasteners.id()).name());
+
+        // Jedno powiadomienie dla utworzonych i jedno dla zmienionych akcesoriów
+        assertEquals(2, notifications.size());
+        assertEquals(2, notifications.get(0).size());
+        assertEquals(List.of(updatedFilament), notifications.get(1));
+    }
 }
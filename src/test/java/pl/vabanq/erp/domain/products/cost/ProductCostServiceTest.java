@@ -0,0 +1,155 @@
+package pl.vabanq.erp.domain.products.cost;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.util.Pair;
+import pl.vabanq.erp.domain.change.ChangeTrackingService;
+import pl.vabanq.erp.domain.error.DomainException;
+import pl.vabanq.erp.domain.products.accessory.AccessoryService;
+import pl.vabanq.erp.domain.products.cost.model.MarginReport;
+import pl.vabanq.erp.domain.products.cost.model.ProductCost;
+import pl.vabanq.erp.domain.products.cost.model.ProductMargin;
+import pl.vabanq.erp.domain.products.product.PreviewRenditionService;
+import pl.vabanq.erp.domain.products.product.ProductService;
+import pl.vabanq.erp.infrastructure.database.accessory.AccessoryRepositoryJPA;
+import pl.vabanq.erp.infrastructure.database.product.ProductRepositoryJPA;
+import pl.vabanq.erp.infrastructure.storage.ProductFileRepositoryFileSystem;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ProductCostServiceTest {
+
+    private ProductService productService;
+
+    private AccessoryService accessoryService;
+
+    private ProductCostService productCostService;
+
+    @Autowired
+    private ProductRepositoryJPA productRepository;
+
+    @Autowired
+    private ProductFileRepositoryFileSystem productFileRepository;
+
+    @Autowired
+    private AccessoryRepositoryJPA accessoryRepository;
+
+    private String filamentId;
+    private String fastenersId;
+    private String packagingId;
+
+    @BeforeEach
+    void setUp() {
+        ChangeTrackingService changeTrackingService = new ChangeTrackingService();
+        this.productService = new ProductService(productRepository, productFileRepository, accessoryRepository,
+                changeTrackingService, new PreviewRenditionService(productFileRepository, Runnable::run, 1));
+        this.accessoryService = new AccessoryService(changeTrackingService, accessoryRepository);
+        this.productCostService = new ProductCostService(productRepository, productService, changeTrackingService,
+                new BigDecimal("10.00"));
+        this.productRepository.cleanUp();
+        this.accessoryRepository.cleanUp();
+
+        filamentId = accessoryService.saveFilament("PLA 1kg", "XYZ", "PLA", "200.0", "60.0", "100.00", "#FFFFFF",
+                "High-quality filament", "10.0").id();
+        fastenersId = accessoryService.saveFastenersAccessory("Screw", "0.50", "100").id();
+        packagingId = accessoryService.savePackagingAccessory("Box", "M", "10x10x10", "2.00", "50").id();
+    }
+
+    @Test
+    @DisplayName("Test product cost breakdown")
+    void testProductCostBreakdown() {
+        String productId = productService.saveProduct("Printed product", "5901234567001",
+                List.of(Pair.of(250.0, filamentId), Pair.of(4.0, fastenersId), Pair.of(1.0, packagingId)),
+                2, 30, "99.99", "5.00", "Product with every kind of accessory").id();
+
+        ProductCost cost = productCostService.getProductCost(productId);
+
+        assertEquals(new BigDecimal("25.00"), cost.filament());
+        assertEquals(new BigDecimal("2.00"), cost.fasteners());
+        assertEquals(new BigDecimal("2.00"), cost.packaging());
+        assertEquals(new BigDecimal("25.00"), cost.machine());
+        assertEquals(new BigDecimal("54.00"), cost.total());
+    }
+
+    @Test
+    @DisplayName("Test accessory price change recalculates only products using it")
+    void testAccessoryPriceChangeRecalculatesAffectedProducts() {
+        String withFilament = productService.saveProduct("Printed product", "5901234567001",
+                List.of(Pair.of(250.0, filamentId), Pair.of(4.0, fastenersId)),
+                1, 0, "99.99", "5.00", "Product printed from filament").id();
+        String withoutFilament = productService.saveProduct("Screw set", "5901234567002",
+                List.of(Pair.of(2.0, fastenersId)), 0, 30, "9.99", "1.00", "Screws in a bag").id();
+        ProductCost untouched = productCostService.getProductCost(withoutFilament);
+
+        accessoryService.updateFilament(filamentId, null, null, null, null, null, "80.00", null, null, null);
+
+        ProductCost recalculated = productCostService.getProductCost(withFilament);
+        assertEquals(new BigDecimal("20.00"), recalculated.filament());
+        assertEquals(new BigDecimal("32.00"), recalculated.total());
+        assertSame(untouched, productCostService.getProductCost(withoutFilament));
+
+        // Zmiana stanu magazynowego nie zmienia ceny, więc nie przelicza kosztów
+        accessoryService.updateFilament(filamentId, null, null, null, null, null, null, null, null, "5.0");
+        assertSame(recalculated, productCostService.getProductCost(withFilament));
+    }
+
+    @Test
+    @DisplayName("Test product change recalculates its cost")
+    void testProductChangeRecalculatesCost() {
+        String productId = productService.saveProduct("Printed product", "5901234567001",
+                List.of(Pair.of(250.0, filamentId)), 1, 0, "99.99", "5.00", "Product printed from filament").id();
+
+        productService.patchProduct(productId, null, null, List.of(Pair.of(500.0, filamentId)), 0, 0,
+                null, null, null);
+
+        ProductCost cost = productCostService.getProductCost(productId);
+        assertEquals(new BigDecimal("50.00"), cost.filament());
+        assertEquals(new BigDecimal("0.00"), cost.machine());
+        assertEquals(new BigDecimal("50.00"), cost.total());
+        assertThrows(DomainException.class, () -> productCostService.getProductCost("missing-product"));
+    }
+
+    @Test
+    @DisplayName("Test margin report sorting, filters and top-N")
+    void testMarginReport() {
+        String printed = productService.saveProduct("Printed product", "5901234567001",
+                List.of(Pair.of(250.0, filamentId), Pair.of(4.0, fastenersId)),
+                1, 0, "99.99", "5.00", "Product printed from filament").id();
+        String screws = productService.saveProduct("Screw set", "5901234567002",
+                List.of(Pair.of(2.0, fastenersId)), 0, 30, "9.99", "1.00", "Screws in a bag").id();
+        String box = productService.saveProduct("Empty box", "5901234567003",
+                List.of(Pair.of(1.0, packagingId)), 0, 0, "5.00", "4.00", "Sold below cost").id();
+
+        MarginReport lowest = productCostService.getMarginReport(null, null, null, "asc", 2);
+        assertEquals(3, lowest.matched());
+        assertEquals(List.of(box, screws), lowest.products().stream().map(ProductMargin::productId).toList());
+        assertEquals(new BigDecimal("-1.00"), lowest.products().getFirst().margin());
+        assertEquals(new BigDecimal("-20.00"), lowest.products().getFirst().marginPercent());
+
+        ProductMargin highest = productCostService.getMarginReport(null, null, null, "desc", 1).products().getFirst();
+        assertEquals(printed, highest.productId());
+        assertEquals(new BigDecimal("37.00"), highest.cost());
+        assertEquals(new BigDecimal("57.99"), highest.margin());
+
+        assertEquals(2, productCostService.getMarginReport("0", null, null, "asc", 10).matched());
+        assertEquals(1, productCostService.getMarginReport("0", "10", null, "asc", 10).matched());
+        assertEquals(List.of(printed), productCostService.getMarginReport(null, null, filamentId, "asc", 10)
+                .products().stream().map(ProductMargin::productId).toList());
+
+        // Zmiana ceny filamentu od razu zmienia marżę w raporcie
+        accessoryService.updateFilament(filamentId, null, null, null, null, null, "80.00", null, null, null);
+        assertEquals(new BigDecimal("62.99"),
+                productCostService.getMarginReport(null, null, null, "desc", 1).products().getFirst().margin());
+
+        assertThrows(DomainException.class, () -> productCostService.getMarginReport(null, null, null, "asc", 0));
+        assertThrows(DomainException.class, () -> productCostService.getMarginReport("abc", null, null, "asc", 10));
+        assertThrows(DomainException.class, () -> productCostService.getMarginReport(null, null, null, "up", 10));
+    }
+}
@@ -15,8 +15,18 @@ import pl.vabanq.erp.domain.products.product.model.Product;
 import pl.vabanq.erp.domain.products.product.model.ProductFile;
 import pl.vabanq.erp.infrastructure.database.accessory.AccessoryRepositoryJPA;
 import pl.vabanq.erp.infrastructure.database.product.ProductRepositoryJPA;
-
+import pl.vabanq.erp.infrastructure.storage.ProductFileRepositoryFileSystem;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.security.MessageDigest;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -30,13 +40,19 @@ class ProductServiceTest {
     @Autowired
     private ProductRepositoryJPA productRepository;
 
+    @Autowired
+    private ProductFileRepositoryFileSystem productFileRepository;
+
     @Autowired
     private AccessoryRepositoryJPA accessoryRepository;
 
     @BeforeEach
     void setUp() {
-        this.productService = new ProductService(productRepository, accessoryRepository, new ChangeTrackingService());
+        // Miniatury renderowane synchronicznie, żeby testy nie zależały od czasu
+        this.productService = new ProductService(productRepository, productFileRepository, accessoryRepository,
+                new ChangeTrackingService(), new PreviewRenditionService(productFileRepository, Runnable::run, 1));
         this.productRepository.cleanUp();
+        this.productFileRepository.cleanUp();
         this.accessoryRepository.cleanUp();
     }
 
@@ -320,7 +336,7 @@ class ProductServiceTest {
     }
     @Test
     @DisplayName("Test updating preview with valid inputs (valid image formats)")
-    void testUpdatePreviewWithValidInputs() {
+    void testUpdatePreviewWithValidInputs() throws IOException {
         // Arrange
         String initialName = "Initial Product";
         String initialEan = "1234567890123";
@@ -344,13 +360,40 @@ class ProductServiceTest {
 
         // Act
         Product existingProduct = productRepository.getAllProducts().get(0);
-        productService.updatePreview(existingProduct.id(), previewData, previewFilename);
+        productService.updatePreview(existingProduct.id(), new ByteArrayInputStream(previewData), previewFilename);
 
         // Assert
         Product updatedProduct = productRepository.getProduct(existingProduct.id());
         assertNotNull(updatedProduct.preview(), "Updated preview should not be null.");
-        assertArrayEquals(previewData, updatedProduct.preview().data());
+        assertArrayEquals(previewData, readContent(updatedProduct.preview()));
         assertEquals(previewFilename, updatedProduct.preview().filename());
+        assertEquals(previewData.length, updatedProduct.preview().size());
+        assertEquals("image/jpeg", updatedProduct.preview().contentType());
+    }
+
+    @Test
+    @DisplayName("Test updating preview creates downscaled renditions")
+    void testUpdatePreviewCreatesRenditions() throws IOException {
+        // Arrange
+        accessoryRepository.saveFilament(new FilamentAccessory(
+                "acc1", "Accessory 1", "Producer A", "PLA", 200.0, 60.0, new BigDecimal("20.00"),
+                "Red", "Red PLA filament", 100.0));
+        productService.saveProduct("Initial Product", "1234567890123", List.of(Pair.of(2.0, "acc1")), 1, 30,
+                "99.99", "5.00", "Initial product description.");
+        ByteArrayOutputStream photo = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_RGB), "png", photo);
+
+        // Act
+        Product existingProduct = productRepository.getAllProducts().get(0);
+        ProductFile preview = productService.updatePreview(existingProduct.id(),
+                new ByteArrayInputStream(photo.toByteArray()), "photo.png").preview();
+
+        // Assert
+        assertEquals(1024, readRendition(preview, 1024).getWidth());
+        assertEquals(512, readRendition(preview, 1024).getHeight());
+        assertEquals(256, readRendition(preview, 256).getWidth());
+        assertEquals(64, readRendition(preview, 64).getWidth());
+        assertThrows(DomainException.class, () -> productService.isPreviewRenditionReady(preview, 100));
     }
 
     @Test
@@ -380,7 +423,7 @@ class ProductServiceTest {
         // Act & Assert
         Product existingProduct = productRepository.getAllProducts().get(0);
         DomainException exception = assertThrows(DomainException.class,
-                () -> productService.updatePreview(existingProduct.id(), previewData, invalidPreviewFilename));
+                () -> productService.updatePreview(existingProduct.id(), new ByteArrayInputStream(previewData), invalidPreviewFilename));
 
         // Sprawdź czy wyjątek zawiera odpowiedni komunikat o niepoprawnym formacie
         assertTrue(exception.getMessage().contains("Invalid preview file format"));
@@ -388,7 +431,7 @@ class ProductServiceTest {
 
     @Test
     @DisplayName("Test adding file with valid inputs")
-    void testAddFileWithValidInputs() {
+    void testAddFileWithValidInputs() throws Exception {
         // Arrange
         String initialName = "Initial Product";
         String initialEan = "1234567890123";
@@ -412,15 +455,40 @@ class ProductServiceTest {
 
         // Act
         Product existingProduct = productRepository.getAllProducts().get(0);
-        productService.addFile(existingProduct.id(), fileData, filename);
+        productService.addFile(existingProduct.id(), new ByteArrayInputStream(fileData), filename);
 
         // Assert
         Product updatedProduct = productRepository.getProduct(existingProduct.id());
         assertNotNull(updatedProduct.files(), "Files list should not be null.");
         assertFalse(updatedProduct.files().isEmpty(), "Files list should not be empty.");
         ProductFile addedFile = updatedProduct.files().get(0);
-        assertArrayEquals(fileData, addedFile.data());
+        assertArrayEquals(fileData, readContent(addedFile));
         assertEquals(filename, addedFile.filename());
+        assertEquals(fileData.length, addedFile.size());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(fileData)), addedFile.hash(),
+                "SHA-256 should be computed while streaming the upload.");
+    }
+
+    @Test
+    @DisplayName("Test adding file releases stored content when the product write fails")
+    void testAddFileReleasesContentWhenWriteFails() throws Exception {
+        // Arrange
+        accessoryRepository.saveFilament(new FilamentAccessory(
+                "acc1", "Accessory 1", "Producer A", "PLA", 200.0, 60.0, new BigDecimal("20.00"),
+                "Red", "Red PLA filament", 100.0));
+        productService.saveProduct("Test Product", "1234567890123", List.of(Pair.of(1.0, "acc1")), 1, 0, "99.99",
+                "5.00", "This is a test product description.");
+        String productId = productRepository.getAllProducts().get(0).id();
+        byte[] fileData = {7, 8, 9};
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(fileData));
+        // Nazwa dłuższa niż kolumna - treść trafia do magazynu, zapis wiersza pliku się nie udaje
+        String filename = "a".repeat(300) + ".stl";
+
+        // Act & Assert
+        assertThrows(RuntimeException.class,
+                () -> productService.addFile(productId, new ByteArrayInputStream(fileData), filename));
+        assertThrows(DomainException.class, () -> productFileRepository.openContent(hash));
+        assertTrue(productRepository.getProduct(productId).files().isEmpty());
     }
 
     @Test
@@ -450,7 +518,7 @@ class ProductServiceTest {
         // Act & Assert
         Product existingProduct = productRepository.getAllProducts().get(0);
         DomainException exception = assertThrows(DomainException.class,
-                () -> productService.addFile(existingProduct.id(), invalidFileData, filename));
+                () -> productService.addFile(existingProduct.id(), new ByteArrayInputStream(invalidFileData), filename));
 
         // Sprawdź czy wyjątek zawiera odpowiedni komunikat o niepoprawnych danych pliku
         assertTrue(exception.getMessage().contains("File data cannot be null or empty"));
@@ -480,16 +548,47 @@ class ProductServiceTest {
         byte[] fileData = {4, 5, 6};
         String filename = "document.pdf";
         Product existingProduct = productRepository.getAllProducts().get(0);
-        productService.addFile(existingProduct.id(), fileData, filename);
+        productService.addFile(existingProduct.id(), new ByteArrayInputStream(fileData), filename);
 
         // Act: delete file by its ID
         Product updatedProductWithFile = productRepository.getProduct(existingProduct.id());
-        String fileIdToDelete = updatedProductWithFile.files().get(0).id();
-        productService.deleteFileById(existingProduct.id(), fileIdToDelete);
+        ProductFile fileToDelete = updatedProductWithFile.files().get(0);
+        productService.deleteFileById(existingProduct.id(), fileToDelete.id());
 
         // Assert
         Product updatedProduct = productRepository.getProduct(existingProduct.id());
         assertTrue(updatedProduct.files().isEmpty(), "Files list should be empty after deletion.");
+        assertThrows(DomainException.class, () -> productFileRepository.openContent(fileToDelete.hash()));
+    }
+
+    @Test
+    @DisplayName("Test identical uploads share stored content until the last reference is deleted")
+    void testIdenticalFilesAreStoredOnce() throws IOException {
+        // Arrange
+        accessoryRepository.saveFilament(new FilamentAccessory(
+                "acc1", "Accessory 1", "Producer A", "PLA", 200.0, 60.0, new BigDecimal("20.00"),
+                "Red", "Red PLA filament", 100.0));
+        List<Pair<Double, String>> accessoriesQ = List.of(Pair.of(1.0, "acc1"));
+        productService.saveProduct("Variant A", "1234567890123", accessoriesQ, 1, 30, "99.99", "5.00", "First variant of the product.");
+        productService.saveProduct("Variant B", "1234567890124", accessoriesQ, 1, 30, "99.99", "5.00", "Second variant of the product.");
+        List<Product> products = productRepository.getAllProducts();
+        byte[] fileData = {7, 8, 9};
+
+        // Act
+        ProductFile first = productService.addFile(products.get(0).id(), new ByteArrayInputStream(fileData), "model.stl")
+                .files().get(0);
+        ProductFile second = productService.addFile(products.get(1).id(), new ByteArrayInputStream(fileData), "model.stl")
+                .files().get(0);
+
+        // Assert
+        assertNotEquals(first.id(), second.id());
+        assertEquals(first.hash(), second.hash());
+
+        productService.deleteFileById(products.get(0).id(), first.id());
+        assertArrayEquals(fileData, readContent(second), "Content should survive while another product references it.");
+
+        productService.deleteFileById(products.get(1).id(), second.id());
+        assertThrows(DomainException.class, () -> productFileRepository.openContent(second.hash()));
     }
 
     @Test
@@ -516,7 +615,7 @@ class ProductServiceTest {
         byte[] fileData = {4, 5, 6};
         String filename = "document.pdf";
         Product existingProduct = productRepository.getAllProducts().get(0);
-        productService.addFile(existingProduct.id(), fileData, filename);
+        productService.addFile(existingProduct.id(), new ByteArrayInputStream(fileData), filename);
 
         // Act: try to delete a file by an invalid file ID
         String invalidFileId = "invalid-file-id";
@@ -527,4 +626,16 @@ class ProductServiceTest {
         assertFalse(updatedProduct.files().isEmpty(), "Files list should not be empty since file ID was invalid.");
     }
 
+    private BufferedImage readRendition(ProductFile preview, int size) throws IOException {
+        assertTrue(productService.isPreviewRenditionReady(preview, size));
+        try (InputStream content = Channels.newInputStream(productService.openPreviewRendition(preview, size))) {
+            return ImageIO.read(content);
+        }
+    }
+
+    private byte[] readContent(ProductFile file) throws IOException {
+        try (InputStream content = Channels.newInputStream(productService.openFileContent(file))) {
+            return content.readAllBytes();
+        }
+    }
 }
@@ -0,0 +1,116 @@
+package pl.vabanq.erp.domain.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.vabanq.erp.domain.search.model.SearchHit;
+import pl.vabanq.erp.domain.search.model.SearchResultType;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(InvertedIndexTest.class);
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex();
+        index.index("p1", SearchResultType.PRODUCT, "Doniczka Łódka", "Doniczka Łódka", "Drukowana z PLA", "5901234123457");
+        index.index("p2", SearchResultType.PRODUCT, "Stojak na słuchawki", "Stojak na słuchawki", "Solidny stojak", "5901234123464");
+        index.index("f1", SearchResultType.FILAMENT, "PLA Galaxy Black", "PLA Galaxy Black", "Prusament", "PLA");
+    }
+
+    @Test
+    @DisplayName("Exact matches rank above prefix and fuzzy matches, diacritics are ignored")
+    void shouldMatchExactPrefixAndFuzzyTerms() {
+        assertEquals(List.of("p1"), ids(index.search("lodka", 10)));
+        assertEquals(List.of("p2"), ids(index.search("stoj", 10)));
+        // literówka: zamiana, brak i nadmiar litery
+        assertEquals(List.of("p2"), ids(index.search("sluchawli", 10)));
+        assertEquals(List.of("p1"), ids(index.search("donczka", 10)));
+        assertEquals(List.of("f1"), ids(index.search("prusamentt", 10)));
+        assertEquals(List.of("p1"), ids(index.search("5901234123457", 10)));
+
+        assertEquals(InvertedIndex.PREFIX_SCORE, index.search("galax", 10).getFirst().score());
+        assertEquals(InvertedIndex.FUZZY_SCORE, index.search("galaxi", 10).getFirst().score());
+
+        // Dokładne dopasowanie przed literówką ("plan" -> "pla"), przy równym wyniku kolejność po nazwie
+        index.index("f2", SearchResultType.FILAMENT, "PLAN filament", "PLAN filament", "Other", "PETG");
+        assertEquals(List.of("f2", "p1", "f1"), ids(index.search("plan", 10)));
+        assertEquals(List.of("p1", "f1"), ids(index.search("pla", 2)));
+    }
+
+    @Test
+    @DisplayName("All query words must match the document")
+    void shouldRequireAllQueryWords() {
+        assertEquals(List.of("f1"), ids(index.search("galaxy pla", 10)));
+        assertTrue(index.search("galaxy stojak", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Reindexing replaces the previous version and removal drops the document")
+    void shouldReplaceAndRemoveDocuments() {
+        index.index("p2", SearchResultType.PRODUCT, "Uchwyt na telefon", "Uchwyt na telefon", "Solidny uchwyt", "5901234123464");
+        assertTrue(index.search("stojak", 10).isEmpty());
+        assertEquals(List.of("p2"), ids(index.search("uchwyt", 10)));
+
+        index.remove("p2");
+        assertTrue(index.search("uchwyt", 10).isEmpty());
+        assertTrue(index.search("uchwyy", 10).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    @DisplayName("Exact, prefix and fuzzy lookups find matches at 100k documents")
+    void shouldSearchLargeIndex() {
+        Random random = new Random(42);
+        String[] words = new String[5000];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = randomWord(random);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+            String description = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]
+                    + " " + words[random.nextInt(words.length)];
+            index.index("doc" + i, SearchResultType.PRODUCT, name, name, description, String.valueOf(5900000000000L + i));
+        }
+
+        List<String> queries = random.ints(2000, 0, words.length)
+                .mapToObj(i -> switch (i % 3) {
+                    case 0 -> words[i];
+                    case 1 -> words[i].substring(0, 4);
+                    default -> words[i].substring(1);
+                })
+                .toList();
+        assertEquals(100_003, index.size());
+
+        // Czas tylko logowany - asercja na czasie zegarowym zależałaby od obciążenia maszyny
+        long start = System.nanoTime();
+        for (String query : queries) {
+            List<SearchHit> results = index.search(query, 20);
+            assertFalse(results.isEmpty(), "No results for " + query);
+            assertTrue(results.size() <= 20);
+        }
+        double averageMillis = (System.nanoTime() - start) / 1_000_000.0 / queries.size();
+        LOGGER.info("Average search time at 100k documents: {} ms", averageMillis);
+    }
+
+    private static String randomWord(Random random) {
+        StringBuilder word = new StringBuilder();
+        int length = 5 + random.nextInt(6);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+
+    private static List<String> ids(List<SearchHit> hits) {
+        return hits.stream().map(SearchHit::id).toList();
+    }
+}
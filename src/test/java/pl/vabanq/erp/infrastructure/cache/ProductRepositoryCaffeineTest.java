@@ -0,0 +1,94 @@
+package pl.vabanq.erp.infrastructure.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.util.Pair;
+import pl.vabanq.erp.domain.products.accessory.AccessoryService;
+import pl.vabanq.erp.domain.products.accessory.model.FilamentAccessory;
+import pl.vabanq.erp.domain.products.product.ProductService;
+import pl.vabanq.erp.domain.products.product.model.Product;
+import pl.vabanq.erp.infrastructure.database.accessory.AccessoryRepositoryJPA;
+import pl.vabanq.erp.infrastructure.database.product.ProductRepositoryJPA;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ProductRepositoryCaffeineTest {
+
+    @Autowired
+    private ProductRepositoryCaffeine productRepository;
+
+    @Autowired
+    private ProductRepositoryJPA productRepositoryJPA;
+
+    @Autowired
+    private AccessoryRepositoryJPA accessoryRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private AccessoryService accessoryService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private FilamentAccessory filament;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.cleanUp();
+        productRepositoryJPA.cleanUp();
+        accessoryRepository.cleanUp();
+        filament = accessoryService.saveFilament("PLA 1kg", "XYZ", "PLA", "200.0", "60.0", "19.99", "#FF0000",
+                "High-quality PLA filament", "10.0");
+        product = productService.saveProduct("Cached Product", "1234567890123", List.of(Pair.of(1.0, filament.id())),
+                1, 30, "99.99", "5.00", "Product served from the cache.");
+    }
+
+    @Test
+    @DisplayName("Repeated reads are served from the cache")
+    void shouldServeRepeatedReadsFromCache() {
+        double hits = hits();
+
+        Product first = productRepository.getProduct(product.id());
+        Product second = productRepository.getProduct(product.id());
+
+        assertSame(first, second);
+        assertEquals(hits + 1, hits());
+    }
+
+    @Test
+    @DisplayName("Saving a product invalidates its cached aggregate")
+    void shouldInvalidateOnProductUpdate() {
+        productRepository.getProduct(product.id());
+
+        productService.updateProduct(product.id(), "Renamed Product", null, null, null, null, null, null, null);
+
+        assertEquals("Renamed Product", productRepository.getProduct(product.id()).name());
+    }
+
+    @Test
+    @DisplayName("Updating an accessory invalidates products that use it")
+    void shouldInvalidateOnAccessoryUpdate() {
+        productRepository.getProduct(product.id());
+
+        accessoryService.updateFilament(filament.id(), "PLA 2kg", null, null, null, null, null, null, null,
+                null);
+
+        Product reloaded = productRepository.getProduct(product.id());
+        assertEquals("PLA 2kg", reloaded.accessoriesQ().getFirst().accessory().name());
+    }
+
+    private double hits() {
+        return meterRegistry.get("cache.gets").tag("cache", "products").tag("result", "hit")
+                .functionCounter().count();
+    }
+}
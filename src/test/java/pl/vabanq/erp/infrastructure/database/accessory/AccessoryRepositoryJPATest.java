@@ -0,0 +1,105 @@
+package pl.vabanq.erp.infrastructure.database.accessory;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import pl.vabanq.erp.domain.products.accessory.model.FilamentAccessory;
+import pl.vabanq.erp.domain.products.accessory.model.PackagingAccessory;
+import pl.vabanq.erp.infrastructure.database.accessory.spring.AccessoryTypeRepositorySpringJPA;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class AccessoryRepositoryJPATest {
+
+    @Autowired
+    private AccessoryRepositoryJPA accessoryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AccessoryTypeRepositorySpringJPA accessoryTypeRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        accessoryRepository.cleanUp();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("Bulk save batches inserts and updates instead of a statement per accessory")
+    void shouldBatchStatementsWhenSavingManyAccessories() {
+        List<FilamentAccessory> filaments = IntStream.range(0, 1000)
+                .mapToObj(i -> filament(UUID.randomUUID().toString(), "Filament " + i, "19.99"))
+                .toList();
+
+        statistics.clear();
+        accessoryRepository.saveAccessories(filaments, List.of());
+
+        // Akcesorium + wpis w rejestrze typów; id z puli sekwencji zamiast odczytu na każdy INSERT
+        assertEquals(2000, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 50,
+                "Expected batched inserts, got " + statistics.getPrepareStatementCount() + " statements.");
+
+        List<FilamentAccessory> updated = filaments.stream()
+                .map(filament -> filament(filament.id(), filament.name(), "24.99"))
+                .toList();
+
+        statistics.clear();
+        accessoryRepository.saveAccessories(List.of(), updated);
+
+        assertEquals(1000, statistics.getEntityUpdateCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 20,
+                "Expected one lookup and batched updates, got " + statistics.getPrepareStatementCount() + " statements.");
+        assertEquals(1000, accessoryRepository.getAccessories(filaments.stream().map(FilamentAccessory::id).toList())
+                .values().stream()
+                .filter(accessory -> ((FilamentAccessory) accessory).pricePerKg().equals(new BigDecimal("24.99")))
+                .count());
+    }
+
+    @Test
+    @DisplayName("Accessories missing from the type registry are read without writes and backfilled at startup")
+    void shouldReadUnregisteredAccessoriesAndBackfillRegistry() {
+        FilamentAccessory filament = filament(UUID.randomUUID().toString(), "Filament", "19.99");
+        PackagingAccessory packaging = new PackagingAccessory(UUID.randomUUID().toString(), "Box", "M", "10x10x10",
+                new BigDecimal("1.50"), 100);
+        accessoryRepository.saveAccessories(List.of(filament, packaging), List.of());
+        // Akcesoria sprzed rejestru typów
+        accessoryTypeRepository.deleteAll();
+
+        statistics.clear();
+        assertEquals(filament, accessoryRepository.getAccessory(filament.id()));
+        assertEquals(Map.of(filament.id(), filament, packaging.id(), packaging),
+                accessoryRepository.getAccessories(List.of(filament.id(), packaging.id())));
+        assertEquals(0, statistics.getEntityInsertCount());
+        assertEquals(0, accessoryTypeRepository.count());
+
+        assertEquals(2, accessoryRepository.registerMissingTypes());
+        assertEquals(0, accessoryRepository.registerMissingTypes());
+
+        // Z rejestrem: wyszukanie typów i jedno zapytanie na typ
+        statistics.clear();
+        assertEquals(Map.of(filament.id(), filament, packaging.id(), packaging),
+                accessoryRepository.getAccessories(List.of(filament.id(), packaging.id())));
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    private static FilamentAccessory filament(String id, String name, String pricePerKg) {
+        return new FilamentAccessory(id, name, "XYZ", "PLA", 200, 60, new BigDecimal(pricePerKg), "#FFFFFF",
+                "High-quality PLA filament", 10);
+    }
+}
@@ -0,0 +1,109 @@
+package pl.vabanq.erp.infrastructure.database.product;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.vabanq.erp.domain.products.product.model.PrintTime;
+import pl.vabanq.erp.domain.products.product.model.Product;
+import pl.vabanq.erp.domain.products.product.model.ProductFile;
+import pl.vabanq.erp.domain.utility.FileUtils;
+import pl.vabanq.erp.infrastructure.storage.ProductFileRepositoryFileSystem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class LegacyFileContentMigrationTest {
+
+    @Autowired
+    private LegacyFileContentMigration migration;
+
+    @Autowired
+    private ProductRepositoryJPA productRepository;
+
+    @Autowired
+    private ProductFileRepositoryFileSystem productFileRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.cleanUp();
+        productFileRepository.cleanUp();
+        // Kolumny z treścią plików sprzed magazynu adresowanego skrótem
+        jdbcTemplate.execute("alter table products add column file_data blob");
+        jdbcTemplate.execute("alter table product_files add column data blob");
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.cleanUp();
+        jdbcTemplate.execute("alter table products drop column file_data");
+        jdbcTemplate.execute("alter table product_files drop column data");
+    }
+
+    @Test
+    @DisplayName("Inline bytes of legacy previews and files are moved to the content store")
+    void shouldMoveLegacyContentToStore() throws IOException {
+        byte[] previewBytes = "legacy png".getBytes(StandardCharsets.UTF_8);
+        byte[] fileBytes = "solid legacy\nendsolid legacy\n".getBytes(StandardCharsets.UTF_8);
+        String productId = saveLegacyProduct("preview.png", previewBytes);
+        String fileId = addLegacyFile(productId, "model.stl", fileBytes);
+        String emptyFileId = addLegacyFile(productId, "lost.stl", null);
+
+        assertEquals(2, migration.migrate());
+
+        Product product = productRepository.getProduct(productId);
+        assertLegacyContent(product.preview(), previewBytes, "image/png");
+        assertLegacyContent(fileById(product, fileId), fileBytes, "model/stl");
+        assertNull(fileById(product, emptyFileId).hash());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from products where file_data is not null", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from product_files where data is not null", Integer.class));
+        // Drugie uruchomienie nie ma już nic do przeniesienia
+        assertEquals(0, migration.migrate());
+    }
+
+    private void assertLegacyContent(ProductFile file, byte[] expected, String contentType) throws IOException {
+        assertEquals(HexFormat.of().formatHex(FileUtils.sha256Digest().digest(expected)), file.hash());
+        assertEquals(expected.length, file.size());
+        assertEquals(contentType, file.contentType());
+        try (InputStream content = Channels.newInputStream(productFileRepository.openContent(file.hash()))) {
+            assertArrayEquals(expected, content.readAllBytes());
+        }
+    }
+
+    private String saveLegacyProduct(String previewName, byte[] previewBytes) {
+        String productId = UUID.randomUUID().toString();
+        productRepository.saveProduct(new Product(productId, "Product", "1234567890123", List.of(),
+                new PrintTime(1, 0), new ProductFile(UUID.randomUUID().toString(), previewName, 0, null, null),
+                List.of(), new BigDecimal("10.00"), new BigDecimal("1.00"), ""));
+        jdbcTemplate.update("update products set file_size = null, file_data = ? where id = ?", previewBytes, productId);
+        return productId;
+    }
+
+    private String addLegacyFile(String productId, String filename, byte[] bytes) {
+        String fileId = UUID.randomUUID().toString();
+        productRepository.addFile(productId, new ProductFile(fileId, filename, 0, null, null));
+        jdbcTemplate.update("update product_files set file_size = null, data = ? where file_id = ?", bytes, fileId);
+        return fileId;
+    }
+
+    private static ProductFile fileById(Product product, String fileId) {
+        return product.files().stream().filter(file -> file.id().equals(fileId)).findFirst().orElseThrow();
+    }
+}
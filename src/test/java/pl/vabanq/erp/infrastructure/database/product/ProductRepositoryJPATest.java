@@ -0,0 +1,218 @@
+package pl.vabanq.erp.infrastructure.database.product;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.vabanq.erp.domain.products.accessory.model.FastenersAccessory;
+import pl.vabanq.erp.domain.products.accessory.model.FilamentAccessory;
+import pl.vabanq.erp.domain.products.accessory.model.PackagingAccessory;
+import pl.vabanq.erp.domain.products.product.model.AccessoryQuantity;
+import pl.vabanq.erp.domain.products.product.model.PrintTime;
+import pl.vabanq.erp.domain.products.product.model.Product;
+import pl.vabanq.erp.domain.products.product.model.ProductFile;
+import pl.vabanq.erp.domain.products.product.model.ProductSummary;
+import pl.vabanq.erp.infrastructure.database.accessory.AccessoryRepositoryJPA;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ProductRepositoryJPATest {
+
+    @Autowired
+    private ProductRepositoryJPA productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AccessoryRepositoryJPA accessoryRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.cleanUp();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("Adding a file issues a single insert regardless of existing files")
+    void shouldAddFileWithSingleInsert() {
+        String productId = saveProductWithFiles(20);
+
+        statistics.clear();
+        productRepository.addFile(productId, file("new.stl"));
+
+        // existsById + INSERT, bez usuwania i ponownego zapisu pozostałych plików
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityDeleteCount());
+        assertEquals(0, statistics.getCollectionRecreateCount());
+        assertEquals(21, productRepository.getProduct(productId).files().size());
+    }
+
+    @Test
+    @DisplayName("Removing a file issues a single delete statement")
+    void shouldRemoveFileWithSingleDelete() {
+        String productId = saveProductWithFiles(20);
+        String fileId = productRepository.getProduct(productId).files().get(5).id();
+
+        statistics.clear();
+        assertTrue(productRepository.removeFile(productId, fileId));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(19, productRepository.getProduct(productId).files().size());
+        assertFalse(productRepository.removeFile(productId, fileId));
+    }
+
+    @Test
+    @DisplayName("Patching a product writes only the changed columns in one statement")
+    void shouldPatchChangedColumnsOnly() {
+        String productId = saveProductWithFiles(20);
+        Product oldProduct = productRepository.getProduct(productId);
+        Product updatedProduct = new Product(productId, oldProduct.name(), oldProduct.ean(), oldProduct.accessoriesQ(),
+                oldProduct.printTime(), oldProduct.preview(), oldProduct.files(), new BigDecimal("12.50"),
+                oldProduct.allegroTax(), oldProduct.description());
+
+        statistics.clear();
+        productRepository.patchProduct(oldProduct, updatedProduct);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(new BigDecimal("12.50"), productRepository.getProduct(productId).price());
+        assertEquals(20, productRepository.getProduct(productId).files().size());
+    }
+
+    @Test
+    @DisplayName("Saving many products batches the inserts")
+    void shouldBatchInsertsWhenSavingManyProducts() {
+        List<Product> products = IntStream.range(0, 1000)
+                .mapToObj(i -> new Product(UUID.randomUUID().toString(), "Product " + i, String.format("%013d", i), List.of(),
+                        new PrintTime(1, 0), null, List.of(), new BigDecimal("10.00"), new BigDecimal("1.00"), ""))
+                .toList();
+
+        statistics.clear();
+        productRepository.saveProducts(products);
+
+        assertEquals(1000, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 20,
+                "Expected batched inserts, got " + statistics.getPrepareStatementCount() + " statements.");
+        assertEquals(1000, productRepository.getAllProducts().size());
+    }
+
+    @Test
+    @DisplayName("Reading a page of products resolves accessories with a constant number of queries")
+    void shouldResolveAccessoriesWithConstantQueries() {
+        List<AccessoryQuantity> accessories = List.of(
+                new AccessoryQuantity(new FilamentAccessory(UUID.randomUUID().toString(), "PLA", "XYZ", "PLA", 200, 60,
+                        new BigDecimal("19.99"), "#FFFFFF", "High-quality PLA filament", 10), 120),
+                new AccessoryQuantity(new PackagingAccessory(UUID.randomUUID().toString(), "Box", "M", "10x10x10",
+                        new BigDecimal("1.50"), 100), 1),
+                new AccessoryQuantity(new FastenersAccessory(UUID.randomUUID().toString(), "Screw", new BigDecimal("5.99"),
+                        100), 4));
+        accessoryRepository.saveAccessories(accessories.stream().map(AccessoryQuantity::accessory).toList(), List.of());
+        productRepository.saveProducts(IntStream.range(0, 100)
+                .mapToObj(i -> new Product(UUID.randomUUID().toString(), "Product " + i, String.format("%013d", i),
+                        accessories, new PrintTime(1, 0), null, List.of(), new BigDecimal("10.00"), new BigDecimal("1.00"), ""))
+                .toList());
+
+        statistics.clear();
+        List<Product> smallPage = productRepository.getProducts(null, 10);
+        long smallPageStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        List<Product> fullPage = productRepository.getProducts(null, 100);
+
+        // Produkty, powiązania (@BatchSize), rejestr typów, jedno zapytanie na typ akcesorium i pliki
+        assertEquals(7, smallPageStatements);
+        assertEquals(7, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getCollectionFetchCount());
+        assertEquals(10, smallPage.size());
+        assertEquals(100, fullPage.size());
+        assertTrue(fullPage.stream().allMatch(product -> product.accessoriesQ().equals(accessories)));
+    }
+
+    @Test
+    @DisplayName("Duplicated EANs left over from before the unique index are reported")
+    void shouldFindDuplicatedEans() {
+        // Baza sprzed unikalnego indeksu - bez niego duplikaty da się zapisać
+        jdbcTemplate.execute("alter table products drop constraint idx_product_ean");
+        try {
+            productRepository.saveProducts(IntStream.range(0, 3)
+                    .mapToObj(i -> new Product(UUID.randomUUID().toString(), "Product " + i, i < 2 ? "0000000000001" : "0000000000002",
+                            List.of(), new PrintTime(1, 0), null, List.of(), new BigDecimal("10.00"), new BigDecimal("1.00"), ""))
+                    .toList());
+
+            assertEquals(List.of("0000000000001"), productRepository.getDuplicatedEans());
+        } finally {
+            productRepository.cleanUp();
+            jdbcTemplate.execute("alter table products add constraint idx_product_ean unique (ean)");
+        }
+        assertEquals(List.of(), productRepository.getDuplicatedEans());
+    }
+
+    @Test
+    @DisplayName("Reading product summaries selects only scalar columns")
+    void shouldReadSummariesWithSingleQuery() {
+        String productId = saveProductWithFiles(5);
+
+        statistics.clear();
+        List<ProductSummary> summaries = productRepository.getAllProductSummaries();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+        assertEquals(1, summaries.size());
+        assertEquals(productId, summaries.getFirst().id());
+        assertEquals(new PrintTime(1, 0), summaries.getFirst().printTime());
+        assertEquals("", summaries.getFirst().description());
+        assertTrue(productRepository.getProductSummaries(productId, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Streaming products hands them over in chunks ordered by id")
+    void shouldStreamProductsInChunks() {
+        List<Product> products = IntStream.range(0, 1200)
+                .mapToObj(i -> new Product(UUID.randomUUID().toString(), "Product " + i, String.format("%013d", i), List.of(),
+                        new PrintTime(1, 0), null, List.of(), new BigDecimal("10.00"), new BigDecimal("1.00"), ""))
+                .toList();
+        productRepository.saveProducts(products);
+
+        List<Integer> chunkSizes = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        productRepository.streamProducts(500, chunk -> {
+            chunkSizes.add(chunk.size());
+            chunk.forEach(product -> ids.add(product.id()));
+        });
+
+        assertEquals(List.of(500, 500, 200), chunkSizes);
+        assertEquals(products.stream().map(Product::id).sorted().toList(), ids);
+    }
+
+    private String saveProductWithFiles(int count) {
+        String productId = UUID.randomUUID().toString();
+        productRepository.saveProduct(new Product(productId, "Product", "1234567890123", List.of(),
+                new PrintTime(1, 0), null, List.of(), new BigDecimal("10.00"), new BigDecimal("1.00"), ""));
+        IntStream.range(0, count).forEach(i -> productRepository.addFile(productId, file("file" + i + ".stl")));
+        return productId;
+    }
+
+    private static ProductFile file(String filename) {
+        return new ProductFile(UUID.randomUUID().toString(), filename, 3, "hash", "model/stl");
+    }
+}
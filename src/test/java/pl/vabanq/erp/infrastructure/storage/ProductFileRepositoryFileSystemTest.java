@@ -0,0 +1,148 @@
+package pl.vabanq.erp.infrastructure.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import pl.vabanq.erp.domain.products.product.model.StoredContent;
+import pl.vabanq.erp.infrastructure.database.product.entity.ContentBlobJPA;
+import pl.vabanq.erp.infrastructure.database.product.spring.ContentBlobRepositorySpringJPA;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ProductFileRepositoryFileSystemTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductFileRepositoryFileSystemTest.class);
+
+    @Autowired
+    private ProductFileRepositoryFileSystem productFileRepository;
+
+    @Autowired
+    private ContentBlobRepositorySpringJPA contentBlobRepository;
+
+    @Value("${files.storage.path}")
+    private String storagePath;
+
+    @BeforeEach
+    void setUp() {
+        productFileRepository.cleanUp();
+    }
+
+    @Test
+    @DisplayName("ASCII STL is stored compressed and read back unchanged")
+    void shouldCompressStl() throws IOException {
+        ContentBlobJPA blob = storeAndVerify("stl", asciiStl(20_000), "model/stl");
+
+        assertEquals(ContentCodec.GZIP, blob.getCodec());
+        assertTrue(blob.getSize() > 3 * blob.getStoredSize(), "ASCII STL should compress at least 3x.");
+    }
+
+    @Test
+    @DisplayName("G-code is stored compressed and read back unchanged")
+    void shouldCompressGcode() throws IOException {
+        ContentBlobJPA blob = storeAndVerify("gcode", gcode(100_000), "text/x-gcode");
+
+        assertEquals(ContentCodec.GZIP, blob.getCodec());
+        assertTrue(blob.getSize() > 2 * blob.getStoredSize(), "G-code should compress at least 2x.");
+    }
+
+    @Test
+    @DisplayName("Already compressed formats pass through unchanged")
+    void shouldPassThroughImages() throws IOException {
+        byte[] image = new byte[1024 * 1024];
+        new Random(42).nextBytes(image);
+
+        ContentBlobJPA blob = storeAndVerify("png", image, "image/png");
+
+        assertEquals(ContentCodec.IDENTITY, blob.getCodec());
+        assertEquals(blob.getSize(), blob.getStoredSize());
+    }
+
+    @Test
+    @DisplayName("Missing file restored by a new upload is read back with the codec it was written with")
+    void shouldRestoreMissingContentWithItsCodec() throws IOException {
+        byte[] data = asciiStl(1_000);
+        StoredContent stored = productFileRepository.saveContent(new ByteArrayInputStream(data), "model/stl");
+        Files.delete(Path.of(storagePath).resolve(stored.hash().substring(0, 2)).resolve(stored.hash()));
+
+        // Ta sama treść pod typem bez kompresji - plik odtwarzany jest bez kodeka
+        productFileRepository.saveContent(new ByteArrayInputStream(data), "application/octet-stream");
+
+        ContentBlobJPA blob = contentBlobRepository.findById(stored.hash()).orElseThrow();
+        assertEquals(ContentCodec.IDENTITY, blob.getCodec());
+        assertEquals(data.length, blob.getStoredSize());
+        assertEquals(2, blob.getReferenceCount());
+        try (InputStream content = Channels.newInputStream(productFileRepository.openContent(stored.hash()))) {
+            assertArrayEquals(data, content.readAllBytes());
+        }
+    }
+
+    // Zapis i odczyt z pomiarem czasu - wynik w logach pokazuje zysk na rozmiarze względem kosztu CPU
+    private ContentBlobJPA storeAndVerify(String label, byte[] data, String contentType) throws IOException {
+        long writeStart = System.nanoTime();
+        StoredContent stored = productFileRepository.saveContent(new ByteArrayInputStream(data), contentType);
+        long writeNanos = System.nanoTime() - writeStart;
+
+        long readStart = System.nanoTime();
+        byte[] read;
+        try (InputStream content = Channels.newInputStream(productFileRepository.openContent(stored.hash()))) {
+            read = content.readAllBytes();
+        }
+        long readNanos = System.nanoTime() - readStart;
+
+        assertArrayEquals(data, read);
+        assertEquals(data.length, stored.size());
+        ContentBlobJPA blob = contentBlobRepository.findById(stored.hash()).orElseThrow();
+        LOGGER.info("{}: {} B -> {} B stored ({}x), write {} ms, read {} ms", label, blob.getSize(),
+                blob.getStoredSize(), String.format(Locale.ROOT, "%.1f", (double) blob.getSize() / blob.getStoredSize()),
+                writeNanos / 1_000_000, readNanos / 1_000_000);
+        return blob;
+    }
+
+    private static byte[] asciiStl(int facets) {
+        Random random = new Random(7);
+        StringBuilder stl = new StringBuilder("solid part\n");
+        for (int i = 0; i < facets; i++) {
+            stl.append(String.format(Locale.ROOT, "  facet normal %e %e %e%n    outer loop%n",
+                    random.nextDouble(), random.nextDouble(), random.nextDouble()));
+            for (int vertex = 0; vertex < 3; vertex++) {
+                stl.append(String.format(Locale.ROOT, "      vertex %e %e %e%n",
+                        random.nextInt(2000) / 10.0, random.nextInt(2000) / 10.0, random.nextInt(500) / 10.0));
+            }
+            stl.append("    endloop\n  endfacet\n");
+        }
+        return stl.append("endsolid part\n").toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] gcode(int moves) {
+        Random random = new Random(11);
+        StringBuilder gcode = new StringBuilder("G28\nG90\nM82\nM104 S210\nM140 S60\n");
+        double x = 100;
+        double y = 100;
+        double extruded = 0;
+        for (int i = 0; i < moves; i++) {
+            x += (random.nextInt(2000) - 1000) / 1000.0;
+            y += (random.nextInt(2000) - 1000) / 1000.0;
+            extruded += random.nextInt(100) / 1000.0;
+            gcode.append(String.format(Locale.ROOT, "G1 X%.3f Y%.3f E%.5f%n", x, y, extruded));
+            if (i % 500 == 0) {
+                gcode.append(String.format(Locale.ROOT, "G1 Z%.2f F600%n;LAYER:%d%n", i / 2500.0, i / 500));
+            }
+        }
+        return gcode.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+}